@@ -0,0 +1,76 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import knight.nameless.assets.AssetPipeline;
+import knight.nameless.streaming.LevelFiles;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load what the game needs before its first frame, the atlas and a map: one after the other on the
+ * calling thread like Platform.create used to, or through the asset pipeline with one lane or more. With no
+ * GPU the texture uploads cost nothing, so this measures the reading and decoding the lanes take off the render
+ * thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssetLoadingBenchmark {
+
+    private static final String ATLAS_PATH = "images/sprites.atlas";
+
+    @Param({"maps/playground/test.tmx", "maps/playground/test3.tmx"})
+    public String mapPath;
+
+    //no lanes loads them one after the other on the calling thread
+    @Param({"0", "1", "2", "3"})
+    public int laneCount;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        BenchmarkAssets.startHeadless();
+    }
+
+    @Benchmark
+    public TiledMap loadBeforeFirstFrame() {
+
+        if (laneCount == 0)
+            return loadSequentially();
+
+        return loadThroughPipeline();
+    }
+
+    private TiledMap loadSequentially() {
+
+        var atlas = new TextureAtlas(ATLAS_PATH);
+        var tiledMap = LevelFiles.loadMap(mapPath);
+
+        atlas.dispose();
+        tiledMap.dispose();
+
+        return tiledMap;
+    }
+
+    private TiledMap loadThroughPipeline() {
+
+        var assets = new AssetPipeline(laneCount);
+        var mapAssetPath = LevelFiles.getMapAssetPath(mapPath);
+
+        assets.load(ATLAS_PATH, TextureAtlas.class);
+        assets.load(mapAssetPath, TiledMap.class);
+        assets.finishLoading();
+
+        var tiledMap = assets.get(mapAssetPath, TiledMap.class);
+        assets.dispose();
+
+        return tiledMap;
+    }
+}
@@ -0,0 +1,90 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.headless.HeadlessGL;
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.MappedLevelReader;
+
+import java.util.Random;
+
+/** Starts the headless backend once per benchmark fork and builds the maps used by the benchmarks. */
+final class BenchmarkAssets {
+
+    static final int TILE_SIZE = 16;
+
+    private BenchmarkAssets() {
+    }
+
+    static synchronized void startHeadless() {
+
+        if (Gdx.app != null)
+            return;
+
+        new HeadlessApplication(new ApplicationAdapter() {});
+        HeadlessGL.install();
+        //the levels are opened like the desktop game opens them
+        LevelFiles.setLevelReader(new MappedLevelReader());
+    }
+
+    static TextureAtlas loadAtlas() {
+
+        startHeadless();
+        return new TextureAtlas("images/sprites.atlas");
+    }
+
+    static SpriteRegistry loadSprites() {
+        return new SpriteRegistry(loadAtlas());
+    }
+
+    /**
+     * Builds a map with the same layers as the tmx files: solid structures spread over a wide level and
+     * enemies dropped above them, both placed with a fixed seed so every run gets the same layout.
+     */
+    static TiledMap createMap(int structureCount, int enemyCount, long seed) {
+
+        var random = new Random(seed);
+        var tiledMap = new TiledMap();
+
+        int mapWidth = Math.max(80, structureCount * 8);
+        float mapPixelWidth = mapWidth * TILE_SIZE;
+
+        var collisions = new MapLayer();
+        collisions.setName("Collisions");
+
+        for (int i = 0; i < structureCount; i++) {
+
+            float width = 32 + random.nextInt(160);
+            float height = 16 + random.nextInt(128);
+            float positionX = random.nextFloat() * (mapPixelWidth - width);
+            float positionY = random.nextFloat() * 640;
+
+            collisions.getObjects().add(new RectangleMapObject(positionX, positionY, width, height));
+        }
+
+        var enemies = new MapLayer();
+        enemies.setName("Enemies");
+
+        for (int i = 0; i < enemyCount; i++) {
+
+            float positionX = random.nextFloat() * (mapPixelWidth - 32);
+            float positionY = 200 + random.nextFloat() * 600;
+
+            enemies.getObjects().add(new RectangleMapObject(positionX, positionY, 32, 32));
+        }
+
+        tiledMap.getLayers().add(collisions);
+        tiledMap.getLayers().add(enemies);
+        tiledMap.getProperties().put("width", mapWidth);
+        tiledMap.getProperties().put("tilewidth", TILE_SIZE);
+
+        return tiledMap;
+    }
+}
@@ -0,0 +1,74 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.physics.SweepAndPrune;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of finding the objects that touch each other with the sweep and prune, and of a whole world step with it. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCollisionBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int entityCount;
+
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private GameWorld world;
+    private final SweepAndPrune sweepAndPrune = new SweepAndPrune();
+    private float jitter = 1;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        tiledMap = BenchmarkAssets.createMap(1000, entityCount, 42);
+
+        world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+
+        //lets the enemies land and spread, so the pairs are the ones of enemies walking on the structures
+        for (int i = 0; i < 120; i++)
+            world.update(Platform.TIME_STEP);
+
+        for (var gameObject : world.getGameObjects())
+            sweepAndPrune.add(gameObject);
+    }
+
+    @Benchmark
+    public int findPairs() {
+
+        var gameObjects = world.getGameObjects();
+
+        //every object moves a little every step, like walking enemies, so the order has to be kept up
+        for (int i = 0; i < gameObjects.size; i++)
+            gameObjects.get(i).bounds.x += (i & 1) == 0 ? jitter : -jitter;
+
+        jitter = -jitter;
+
+        return sweepAndPrune.findPairs().size;
+    }
+
+    @Benchmark
+    public void updateWorld() {
+        world.update(Platform.TIME_STEP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        tiledMap.dispose();
+        sprites.dispose();
+    }
+}
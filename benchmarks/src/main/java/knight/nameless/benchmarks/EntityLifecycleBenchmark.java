@@ -0,0 +1,65 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.objects.Enemy;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of spawning a wave of enemies, stepping it once and despawning it again, with the enemies recycled. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityLifecycleBenchmark {
+
+    @Param({"100", "1000"})
+    public int waveSize;
+
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private GameWorld world;
+    private final Array<Enemy> wave = new Array<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        tiledMap = BenchmarkAssets.createMap(100, 0, 42);
+
+        world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+    }
+
+    @Benchmark
+    public void spawnStepDespawn() {
+
+        for (int i = 0; i < waveSize; i++)
+            wave.add(world.spawnEnemy(i * 40, 1000, 32, 32));
+
+        world.update(Platform.TIME_STEP);
+
+        for (int i = 0; i < wave.size; i++)
+            world.despawnEnemy(wave.get(i));
+
+        wave.clear();
+
+        //the despawned enemies go back to the pool at the end of this step
+        world.update(Platform.TIME_STEP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        tiledMap.dispose();
+        sprites.dispose();
+    }
+}
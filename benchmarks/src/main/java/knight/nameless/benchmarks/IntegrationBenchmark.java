@@ -0,0 +1,74 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.objects.Enemy;
+import knight.nameless.objects.Player;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of the Player and Enemy updates (animation, gravity, friction and integration) without collisions. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntegrationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int entityCount;
+
+    private SpriteRegistry sprites;
+    private Player player;
+    private final Array<Enemy> enemies = new Array<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        player = new Player(new Rectangle(450, 50, 32, 32), sprites);
+
+        for (int i = 0; i < entityCount; i++)
+            enemies.add(new Enemy(new Rectangle(i * 40, 1000, 32, 32), sprites));
+    }
+
+    @Benchmark
+    public void updatePlayer() {
+
+        player.update(Platform.TIME_STEP);
+    }
+
+    @Benchmark
+    public void updateEnemies() {
+
+        for (int i = 0; i < enemies.size; i++) {
+
+            var enemy = enemies.get(i);
+            enemy.update(Platform.TIME_STEP);
+
+            liftEnemy(enemy);
+        }
+    }
+
+    //there is no ground, so the enemies are lifted back up before they fall far enough to be destroyed
+    private void liftEnemy(Enemy enemy) {
+
+        if (enemy.bounds.y < 100) {
+
+            enemy.bounds.y = 1000;
+            enemy.velocity.y = 0;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        sprites.dispose();
+    }
+}
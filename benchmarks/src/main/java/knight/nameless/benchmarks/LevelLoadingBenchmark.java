@@ -0,0 +1,116 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.XmlReader;
+
+import knight.nameless.headless.LevelCompiler;
+import knight.nameless.streaming.BinaryLevel;
+import knight.nameless.streaming.BinaryLevelLoader;
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.LevelReader;
+import knight.nameless.streaming.MapChunk;
+import knight.nameless.streaming.MappedLevelReader;
+import knight.nameless.streaming.TmxChunkSource;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the shipped maps from their .tmx files against loading them from the binary levels the compileLevels
+ * task makes, through the readers the game uses: mapped from the file on the desktop, and read into the heap on
+ * the web. The decode benchmarks leave out the tile set textures, which cost the same for both formats, to show
+ * only the parsing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelLoadingBenchmark {
+
+    @Param({"maps/playground/test.tmx", "maps/playground/test2.tmx", "maps/playground/test3.tmx",
+        "maps/playground/test4.tmx"})
+    public String mapPath;
+
+    private String mapText;
+    private Path levelFile;
+    private FileHandle levelHandle;
+    private final LevelReader mappedReader = new MappedLevelReader();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        BenchmarkAssets.startHeadless();
+
+        mapText = Gdx.files.internal(mapPath).readString("UTF-8");
+
+        var chunkSource = new TmxChunkSource(mapPath);
+        byte[] levelBytes = LevelCompiler.compile(chunkSource, LevelFiles.hashSources(Gdx.files.internal(mapPath)));
+        chunkSource.dispose();
+
+        levelFile = Files.createTempFile("level", BinaryLevel.EXTENSION);
+        Files.write(levelFile, levelBytes);
+
+        levelHandle = new FileHandle(levelFile.toFile());
+    }
+
+    @Benchmark
+    public TiledMap loadTmx() {
+
+        var tiledMap = new TmxMapLoader().load(mapPath);
+        tiledMap.dispose();
+
+        return tiledMap;
+    }
+
+    @Benchmark
+    public TiledMap loadBinary() {
+
+        var tiledMap = new BinaryLevelLoader().load(LevelReader.HEAP.read(levelHandle));
+        tiledMap.dispose();
+
+        return tiledMap;
+    }
+
+    @Benchmark
+    public TiledMap loadMappedBinary() {
+
+        var tiledMap = new BinaryLevelLoader().load(mappedReader.read(levelHandle));
+        tiledMap.dispose();
+
+        return tiledMap;
+    }
+
+    @Benchmark
+    public XmlReader.Element decodeTmx() {
+        return new XmlReader().parse(mapText);
+    }
+
+    @Benchmark
+    public int decodeMappedBinary() {
+
+        var level = mappedReader.read(levelHandle);
+        int structureCount = 0;
+
+        for (int i = 0; i < level.getChunkCount(); i++) {
+
+            MapChunk chunk = level.readChunkAt(i);
+            structureCount += chunk.structures.size;
+        }
+
+        return structureCount;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(levelFile);
+    }
+}
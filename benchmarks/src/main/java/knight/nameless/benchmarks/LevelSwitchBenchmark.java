@@ -0,0 +1,98 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import knight.nameless.GameWorld;
+import knight.nameless.LevelManager;
+import knight.nameless.assets.AssetPipeline;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.streaming.LevelFiles;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the frame that changes level pays: loading the next map and building its world right there, against
+ * swapping in the level the manager preloaded. The setup waits for the preload outside of the measurement, and
+ * the level left behind is disposed by the updates of the next preload, like the game does over its next frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelSwitchBenchmark {
+
+    private static final String[] LEVEL_PATHS = {
+        "maps/playground/test.tmx", "maps/playground/test2.tmx", "maps/playground/test3.tmx"
+    };
+
+    private SpriteRegistry sprites;
+    private AssetPipeline assets;
+    private LevelManager levels;
+    private int loadedLevel;
+    private TiledMap loadedMap;
+    private GameWorld loadedWorld;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        assets = new AssetPipeline(2);
+
+        levels = new LevelManager(assets, 0, LEVEL_PATHS);
+        levels.queueFirstLevel();
+        assets.finishLoading();
+        levels.startFirstLevel(sprites);
+
+        loadedMap = LevelFiles.loadMap(LEVEL_PATHS[0]);
+        loadedWorld = new GameWorld(sprites);
+        loadedWorld.loadMap(loadedMap);
+    }
+
+    @Setup(Level.Invocation)
+    public void preloadNextLevel() {
+
+        while (!levels.isNextLevelReady()) {
+
+            levels.update();
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    public GameWorld switchByLoading() {
+
+        loadedLevel = (loadedLevel + 1) % LEVEL_PATHS.length;
+
+        var tiledMap = LevelFiles.loadMap(LEVEL_PATHS[loadedLevel]);
+        var world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+
+        loadedWorld.dispose();
+        loadedMap.dispose();
+
+        loadedWorld = world;
+        loadedMap = tiledMap;
+
+        return world;
+    }
+
+    @Benchmark
+    public GameWorld switchToPreloaded() {
+
+        return levels.switchToNextLevel().world;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        loadedWorld.dispose();
+        loadedMap.dispose();
+        levels.dispose();
+        sprites.dispose();
+        assets.dispose();
+    }
+}
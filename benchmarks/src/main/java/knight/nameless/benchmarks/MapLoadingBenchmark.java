@@ -0,0 +1,65 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+
+import knight.nameless.GameWorld;
+import knight.nameless.assets.SpriteRegistry;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of loading the shipped maps with TmxMapLoader and building the world from them. The map renderer
+ * created by Platform.setupMap needs real shaders, so only the world part of setupMap is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapLoadingBenchmark {
+
+    @Param({"maps/playground/test.tmx", "maps/playground/test2.tmx", "maps/playground/test3.tmx",
+        "maps/playground/test4.tmx"})
+    public String mapPath;
+
+    private SpriteRegistry sprites;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+    }
+
+    @Benchmark
+    public TiledMap loadMap() {
+
+        var tiledMap = new TmxMapLoader().load(mapPath);
+        tiledMap.dispose();
+
+        return tiledMap;
+    }
+
+    @Benchmark
+    public GameWorld loadMapAndSetupWorld() {
+
+        var tiledMap = new TmxMapLoader().load(mapPath);
+
+        var world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+
+        tiledMap.dispose();
+        world.dispose();
+
+        return world;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        sprites.dispose();
+    }
+}
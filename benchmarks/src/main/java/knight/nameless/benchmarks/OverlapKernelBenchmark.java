@@ -0,0 +1,135 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+
+import knight.nameless.GameWorld;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.physics.OverlapKernel;
+import knight.nameless.physics.PackedRectangles;
+import knight.nameless.physics.ScalarOverlapKernel;
+import knight.nameless.simd.VectorOverlapKernel;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of testing one object against every structure of the map, without a broad phase: the loop of
+ * {@link Rectangle#overlaps} the collision does per structure, against the packed kernels that fill the same hit
+ * mask. Every invocation tests the next of a fixed set of player-sized areas spread over the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class OverlapKernelBenchmark {
+
+    private static final int AREA_COUNT = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int structureCount;
+
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private GameWorld world;
+    private Array<Rectangle> structures;
+    private final PackedRectangles packedStructures = new PackedRectangles();
+    private final OverlapKernel scalarKernel = new ScalarOverlapKernel();
+    private final OverlapKernel vectorKernel = new VectorOverlapKernel();
+    private final Rectangle[] areas = new Rectangle[AREA_COUNT];
+    private long[] hitMask;
+    private int areaIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        tiledMap = BenchmarkAssets.createMap(structureCount, 0, 42);
+
+        world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+
+        structures = world.getCollisionBounds();
+        packedStructures.set(structures);
+        hitMask = new long[packedStructures.getMaskLength()];
+
+        var random = new Random(42);
+        float mapPixelWidth = Math.max(80, structureCount * 8) * BenchmarkAssets.TILE_SIZE;
+
+        for (int i = 0; i < AREA_COUNT; i++)
+            areas[i] = new Rectangle(random.nextFloat() * (mapPixelWidth - 32), random.nextFloat() * 640, 32, 32);
+
+        checkKernel(scalarKernel);
+        checkKernel(vectorKernel);
+    }
+
+    //a faster kernel that finds other overlaps than the rectangles would measure nothing
+    private void checkKernel(OverlapKernel kernel) {
+
+        var expected = new long[hitMask.length];
+
+        for (var area : areas) {
+
+            int expectedCount = rectangleOverlaps(area, expected);
+            int count = kernel.overlaps(packedStructures, area.x, area.y, area.width, area.height, hitMask);
+
+            if (count != expectedCount || !Arrays.equals(hitMask, expected))
+                throw new IllegalStateException(kernel.getClass().getSimpleName() + " found other overlaps");
+        }
+    }
+
+    private int rectangleOverlaps(Rectangle area, long[] mask) {
+
+        int hitCount = 0;
+
+        Arrays.fill(mask, 0);
+
+        for (int i = 0; i < structures.size; i++) {
+
+            if (area.overlaps(structures.get(i))) {
+
+                mask[i >>> 6] |= 1L << i;
+                hitCount++;
+            }
+        }
+
+        return hitCount;
+    }
+
+    private Rectangle nextArea() {
+        return areas[areaIndex++ & (AREA_COUNT - 1)];
+    }
+
+    @Benchmark
+    public int rectangleOverlaps() {
+        return rectangleOverlaps(nextArea(), hitMask);
+    }
+
+    @Benchmark
+    public int scalarKernel() {
+
+        var area = nextArea();
+        return scalarKernel.overlaps(packedStructures, area.x, area.y, area.width, area.height, hitMask);
+    }
+
+    @Benchmark
+    public int vectorKernel() {
+
+        var area = nextArea();
+        return vectorKernel.overlaps(packedStructures, area.x, area.y, area.width, area.height, hitMask);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        world.dispose();
+        tiledMap.dispose();
+        sprites.dispose();
+    }
+}
@@ -0,0 +1,119 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.input.InputSnapshot;
+import knight.nameless.input.InputSource;
+import knight.nameless.tuning.MovementParameters;
+import knight.nameless.tuning.PlayerBatch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One lock-step of many runs of the player on the same map with different movement constants: the copies of a
+ * {@link PlayerBatch} against one world per run, the way the constants were tried before. Dividing the time by
+ * the copy count gives the cost of one player step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerBatchBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int copyCount;
+
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private PlayerBatch batch;
+    private final Array<GameWorld> worlds = new Array<>();
+
+    //runs and jumps following a fixed script, every copy starting at a different point of it
+    private static class ScriptedInput implements InputSource {
+
+        private final int[] script;
+        private int step;
+
+        ScriptedInput(int[] script, int start) {
+
+            this.script = script;
+            step = start;
+        }
+
+        @Override
+        public int poll() {
+            return script[step++ % script.length];
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        tiledMap = BenchmarkAssets.createMap(300, 0, 42);
+
+        var random = new Random(42);
+        var script = new int[3600];
+
+        for (int i = 0; i < script.length; i++) {
+
+            int buttons = random.nextInt(4) < 3 ? InputSnapshot.RIGHT : InputSnapshot.LEFT;
+            script[i] = (i / 30) % 3 == 0 ? buttons | InputSnapshot.JUMP : buttons;
+        }
+
+        var parameters = new MovementParameters();
+
+        for (int i = 0; i < copyCount; i++) {
+
+            var world = new GameWorld(sprites);
+            world.loadMap(tiledMap);
+            world.setInputSource(new ScriptedInput(script, i * 7));
+            worlds.add(world);
+
+            if (batch == null)
+                batch = new PlayerBatch(world.getCollisionBounds());
+
+            //the constants spread around the ones of the game, like a sweep would try them
+            parameters.set(18 + random.nextFloat() * 6, 0.85f + random.nextFloat() * 0.1f, 40 + random.nextInt(21),
+                700 + random.nextInt(201));
+
+            batch.add(parameters, new ScriptedInput(script, i * 7));
+        }
+    }
+
+    @Benchmark
+    public void stepBatch() {
+        batch.step(Platform.TIME_STEP);
+    }
+
+    @Benchmark
+    public void stepWorlds() {
+
+        for (var world : worlds)
+            world.update(Platform.TIME_STEP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        for (var world : worlds)
+            world.dispose();
+
+        worlds.clear();
+        tiledMap.dispose();
+        sprites.dispose();
+    }
+}
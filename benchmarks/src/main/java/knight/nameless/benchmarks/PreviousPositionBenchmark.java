@@ -0,0 +1,43 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.objects.Player;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of GameObject.getPreviousPosition, which the collision resolution calls for every overlapping structure. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreviousPositionBenchmark {
+
+    private SpriteRegistry sprites;
+    private Player player;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        player = new Player(new Rectangle(450, 50, 32, 32), sprites);
+        player.velocity.set(3, -2);
+    }
+
+    @Benchmark
+    public Rectangle getPreviousPosition() {
+
+        return player.getPreviousPosition();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        sprites.dispose();
+    }
+}
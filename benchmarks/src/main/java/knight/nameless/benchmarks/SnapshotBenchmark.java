@@ -0,0 +1,65 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.snapshot.RewindBuffer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of keeping the world state of every step in the rewind buffer, and of going back to one of them. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int entityCount;
+
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private GameWorld world;
+    //ten seconds of steps, like the game keeps
+    private final RewindBuffer rewindBuffer = new RewindBuffer(600, 64);
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        tiledMap = BenchmarkAssets.createMap(100, entityCount, 42);
+
+        world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+
+        //fills the buffer, so restoring reads states written by the simulation
+        for (int i = 0; i < 600; i++) {
+
+            world.update(Platform.TIME_STEP);
+            rewindBuffer.record(world);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        rewindBuffer.record(world);
+    }
+
+    @Benchmark
+    public void restore() {
+        rewindBuffer.restore(world, 300);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        tiledMap.dispose();
+        sprites.dispose();
+    }
+}
@@ -0,0 +1,120 @@
+package knight.nameless.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.objects.GameObject;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of resolving every object against the map structures, and of a whole world step, per frame. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructureCollisionBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int structureCount;
+
+    @Param({"10", "100", "1000"})
+    public int entityCount;
+
+    //the swept solver against the discrete one it replaced
+    @Param({"true", "false"})
+    public boolean sweptCollision;
+
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private GameWorld world;
+    //every invocation starts from the same positions and velocities, otherwise the enemies walk off the
+    //structures during the first iterations and the rest of the run measures objects falling in empty space
+    private float[] settledState;
+    //the same objects right after they moved and before the collisions were resolved
+    private float[] movedState;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        sprites = BenchmarkAssets.loadSprites();
+        tiledMap = BenchmarkAssets.createMap(structureCount, entityCount, 42);
+
+        world = new GameWorld(sprites);
+        world.setUseSweptCollision(sweptCollision);
+        world.loadMap(tiledMap);
+
+        //lets the enemies land, so both benchmarks measure objects resting on or running into structures
+        for (int i = 0; i < 120; i++)
+            world.update(Platform.TIME_STEP);
+
+        var gameObjects = world.getGameObjects();
+        settledState = new float[gameObjects.size * 4];
+        movedState = new float[gameObjects.size * 4];
+
+        saveState(settledState);
+
+        for (int i = 0; i < gameObjects.size; i++)
+            gameObjects.get(i).update(Platform.TIME_STEP);
+
+        saveState(movedState);
+    }
+
+    private void saveState(float[] state) {
+
+        var gameObjects = world.getGameObjects();
+
+        for (int i = 0; i < gameObjects.size; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            state[i * 4] = gameObject.bounds.x;
+            state[i * 4 + 1] = gameObject.bounds.y;
+            state[i * 4 + 2] = gameObject.velocity.x;
+            state[i * 4 + 3] = gameObject.velocity.y;
+        }
+    }
+
+    private void restoreState(GameObject gameObject, float[] state, int index) {
+
+        gameObject.bounds.setPosition(state[index * 4], state[index * 4 + 1]);
+        gameObject.velocity.set(state[index * 4 + 2], state[index * 4 + 3]);
+    }
+
+    @Benchmark
+    public void manageStructureCollision() {
+
+        var gameObjects = world.getGameObjects();
+
+        for (int i = 0; i < gameObjects.size; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            restoreState(gameObject, movedState, i);
+            world.manageStructureCollision(Platform.TIME_STEP, gameObject);
+        }
+    }
+
+    @Benchmark
+    public void updateWorld() {
+
+        var gameObjects = world.getGameObjects();
+
+        for (int i = 0; i < gameObjects.size; i++)
+            restoreState(gameObjects.get(i), settledState, i);
+
+        world.update(Platform.TIME_STEP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        tiledMap.dispose();
+        sprites.dispose();
+    }
+}
@@ -0,0 +1,17 @@
+package knight.nameless;
+
+import knight.nameless.objects.Enemy;
+import knight.nameless.objects.Player;
+
+/** Told about every contact between objects the world resolved in a step, right after it resolved it. */
+public interface ContactListener {
+
+    /** The player fell on the enemy, which is destroyed, and bounced off it. */
+    void onStomp(Player player, Enemy enemy);
+
+    /** The player and the enemy ran into each other any other way. */
+    void onPlayerHit(Player player, Enemy enemy);
+
+    /** Two enemies met, the ones that were walking into the other turned around. */
+    void onEnemiesMet(Enemy first, Enemy second);
+}
@@ -0,0 +1,122 @@
+package knight.nameless;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the chunks of the world update on a fork-join pool. The tasks are reused between steps, so a step
+ * does not allocate. Desktop only, it is excluded from the GWT build.
+ */
+public class ForkJoinUpdateExecutor implements UpdateExecutor {
+
+    private final ForkJoinPool pool;
+    private final HelperAction[] helperActions;
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private final AtomicInteger pendingChunks = new AtomicInteger();
+    private int chunkCount;
+    private IntConsumer chunkTask;
+    private Thread caller;
+    private volatile Throwable failure;
+
+    public ForkJoinUpdateExecutor(int parallelism) {
+
+        pool = new ForkJoinPool(parallelism);
+
+        //the caller takes chunks too, so one helper less than the parallelism keeps every core busy
+        helperActions = new HelperAction[parallelism - 1];
+
+        for (int i = 0; i < helperActions.length; i++)
+            helperActions[i] = new HelperAction();
+    }
+
+    @Override
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void execute(int chunkCount, IntConsumer chunkTask) {
+
+        this.chunkCount = chunkCount;
+        this.chunkTask = chunkTask;
+        caller = Thread.currentThread();
+        pendingChunks.set(chunkCount);
+        //the chunks can be taken from here on
+        nextChunk.set(0);
+
+        //a helper still queued or finishing the previous step takes chunks of this step or finds none left, either
+        //is fine, and pushing it again would only grow the queue of the pool when the workers fall behind
+        for (var helperAction : helperActions) {
+
+            if (helperAction.isPushed && !helperAction.isDone())
+                continue;
+
+            helperAction.isPushed = true;
+            helperAction.reinitialize();
+            pool.execute(helperAction);
+        }
+
+        //the caller helps with the work instead of waiting for the workers to start
+        runChunks();
+
+        //joining a task a worker is still running allocates a wait node, so the caller parks until the last
+        //chunk wakes it up
+        while (pendingChunks.get() > 0)
+            LockSupport.park(this);
+
+        this.chunkTask = null;
+
+        if (failure != null)
+            rethrowFailure();
+    }
+
+    private void runChunks() {
+
+        int chunk;
+
+        while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+
+            try {
+                chunkTask.accept(chunk);
+            }
+            catch (RuntimeException | Error exception) {
+                failure = exception;
+            }
+            finally {
+                if (pendingChunks.decrementAndGet() == 0)
+                    LockSupport.unpark(caller);
+            }
+        }
+    }
+
+    private void rethrowFailure() {
+
+        var exception = failure;
+        failure = null;
+
+        if (exception instanceof Error)
+            throw (Error) exception;
+
+        throw (RuntimeException) exception;
+    }
+
+    @Override
+    public void dispose() {
+        pool.shutdown();
+    }
+
+    private class HelperAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        //only read and written by the caller
+        private boolean isPushed;
+
+        @Override
+        protected void compute() {
+            runChunks();
+        }
+    }
+}
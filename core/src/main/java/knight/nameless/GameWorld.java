@@ -0,0 +1,873 @@
+package knight.nameless;
+
+import com.badlogic.gdx.maps.*;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.input.InputSnapshot;
+import knight.nameless.input.InputSource;
+import knight.nameless.objects.Enemy;
+import knight.nameless.objects.EnemyPool;
+import knight.nameless.objects.GameObject;
+import knight.nameless.objects.GameObject.ActivityState;
+import knight.nameless.objects.Player;
+import knight.nameless.physics.AabbTree;
+import knight.nameless.physics.SolidTileMerger;
+import knight.nameless.physics.SparseSpatialGrid;
+import knight.nameless.physics.SweepAndPrune;
+import knight.nameless.physics.SpatialGrid;
+import knight.nameless.physics.StructureCollider;
+import knight.nameless.physics.StructureIndex;
+import knight.nameless.profiling.FrameProfiler;
+import knight.nameless.profiling.FrameProfiler.Phase;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/** The simulated part of the game: the objects, the map structures and the physics step, without any rendering. */
+public class GameWorld {
+
+    private final Player player;
+    private final Array<GameObject> gameObjects = new Array<>();
+    private final EnemyPool enemyPool;
+    private int spawnCount;
+    //despawned objects still in the objects, they are removed together at the end of the step
+    private int despawnedCount;
+    //the objects touching each other, found after every object moved and collided with the structures
+    private final SweepAndPrune sweepAndPrune = new SweepAndPrune();
+    private ContactListener contactListener;
+    //how fast the player bounces off an enemy it stomps, per second like the jump
+    private static final float STOMP_BOUNCE = 400;
+    //how fast the player jumps off the ground, per second
+    public static final float JUMP_SPEED = 800;
+    private int contactPairCount;
+    private int stompCount;
+    private int playerHitCount;
+    private int enemyContactCount;
+    private final Array<Rectangle> collisionBounds = new Array<>();
+    private final SpatialGrid structureGrid = new SpatialGrid(64);
+    private final AabbTree structureTree = new AabbTree();
+    private StructureIndex broadPhase = structureGrid;
+    //set when the map is streamed, the structures are then inserted and removed one by one
+    private SparseSpatialGrid streamedStructureGrid;
+    private boolean isStructureTreeOutdated;
+    private final StructureCollider structureCollider = new StructureCollider();
+    private boolean isSweptCollision = true;
+    private float mapPixelWidth;
+    private int solidTileCount;
+    private int coveredTileCount;
+    private int solidRectangleCount;
+    private UpdateExecutor updateExecutor = UpdateExecutor.SERIAL;
+    private InputSource inputSource = InputSource.NONE;
+    //more chunks than threads, so a thread that finishes early can take work from the others
+    private static final int CHUNKS_PER_THREAD = 4;
+    private StructureCollider[] chunkColliders = new StructureCollider[0];
+    private final IntConsumer chunkTask = this::updateChunk;
+    private UpdatePhase chunkPhase;
+    private float chunkDeltaTime;
+    //objects this close to the view are fully simulated, further away up to the throttled margin they are
+    //updated once every few steps, and beyond that they sleep until the view gets near them again. A throttled
+    //object runs the steps it skipped when it is updated, so it moves as far as it would near the view, only its
+    //collisions are checked once for the whole movement. A sleeping object is frozen and doesn't make up its steps
+    private static final float ACTIVE_MARGIN = 64;
+    private static final float THROTTLED_MARGIN = 640;
+    private static final int THROTTLED_STEP_INTERVAL = 4;
+    private final Rectangle activeArea = new Rectangle();
+    private final Rectangle throttledArea = new Rectangle();
+    private boolean hasActivityArea;
+    //the size of the view centered on the player that the areas are moved with on every step
+    private float activityViewWidth;
+    private float activityViewHeight;
+    private int stepCount;
+    private int activeCount;
+    private int throttledCount;
+    private int sleepingCount;
+
+    //"WRLD"
+    public static final int STATE_MAGIC = 0x57524C44;
+    public static final int STATE_VERSION = 2;
+    private static final int STATE_HEADER_BYTES = 16;
+
+    //with a profiler the collisions are resolved in a phase of their own, after every object moved
+    private FrameProfiler profiler;
+
+    private enum UpdatePhase {UPDATE, COLLIDE}
+
+    /** The objects draw the frames of the registry, which stays owned by the caller. */
+    public GameWorld(SpriteRegistry sprites) {
+
+        enemyPool = new EnemyPool(sprites);
+        player = new Player(new Rectangle(Player.SPAWN_X, Player.SPAWN_Y, Player.SIZE, Player.SIZE), sprites);
+
+        gameObjects.add(player);
+        sweepAndPrune.add(player);
+    }
+
+    public void loadMap(TiledMap tiledMap) {
+
+        MapLayers mapLayers = tiledMap.getLayers();
+
+        for (MapLayer mapLayer : mapLayers) {
+
+            parseMapObjectsToBounds(mapLayer.getObjects(), mapLayer.getName());
+        }
+
+        MapProperties properties = tiledMap.getProperties();
+
+        int mapWidth = properties.get("width", Integer.class);
+        int tilePixelWidth = properties.get("tilewidth", Integer.class);
+        mapPixelWidth = mapWidth * tilePixelWidth;
+
+        addSolidTiles(mapLayers);
+
+        structureGrid.build(collisionBounds);
+        structureTree.build(collisionBounds);
+
+        ensureObjectCapacity(gameObjects.size);
+    }
+
+    /**
+     * Grows the arrays the steps go through to hold this many objects, done for the objects of the map when it is
+     * loaded. A caller that spawns more objects later reserves them here, so the first steps do not allocate.
+     */
+    public void ensureObjectCapacity(int objectCount) {
+
+        gameObjects.ensureCapacity(objectCount - gameObjects.size);
+        sweepAndPrune.ensureCapacity(objectCount);
+    }
+
+    private void addSolidTiles(MapLayers mapLayers) {
+
+        var tileLayers = mapLayers.getByType(TiledMapTileLayer.class);
+
+        if (tileLayers.isEmpty())
+            return;
+
+        int mapWidth = 0;
+        int mapHeight = 0;
+
+        for (var tileLayer : tileLayers) {
+
+            mapWidth = Math.max(mapWidth, tileLayer.getWidth());
+            mapHeight = Math.max(mapHeight, tileLayer.getHeight());
+        }
+
+        var solid = new boolean[mapWidth * mapHeight];
+        float tileWidth = tileLayers.first().getTileWidth();
+        float tileHeight = tileLayers.first().getTileHeight();
+
+        //the solid tiles of every tile layer are merged together, a floor drawn over two layers is still one piece
+        for (var tileLayer : tileLayers) {
+
+            for (int row = 0; row < tileLayer.getHeight(); row++) {
+                for (int column = 0; column < tileLayer.getWidth(); column++) {
+
+                    var cell = tileLayer.getCell(column, row);
+
+                    if (cell != null && SolidTileMerger.isSolid(cell.getTile()) && !solid[row * mapWidth + column]) {
+
+                        solid[row * mapWidth + column] = true;
+                        solidTileCount++;
+                    }
+                }
+            }
+        }
+
+        if (solidTileCount == 0)
+            return;
+
+        //the hand drawn collision shapes already collide where they are, so the tiles under them are left out and
+        //no piece of ground reaches the broad phase twice, only the solid tiles no shape covers are merged
+        for (var shape : collisionBounds) {
+
+            coveredTileCount += SolidTileMerger.clearCovered(solid, mapWidth, mapHeight, 0, 0, tileWidth, tileHeight,
+                shape.x, shape.y, shape.width, shape.height);
+        }
+
+        if (coveredTileCount == solidTileCount)
+            return;
+
+        var rectangles = new FloatArray();
+        solidRectangleCount += SolidTileMerger.merge(solid, mapWidth, mapHeight, 0, 0, tileWidth, tileHeight, rectangles);
+
+        for (int i = 0; i < rectangles.size; i += 4) {
+
+            collisionBounds.add(new Rectangle(rectangles.get(i), rectangles.get(i + 1), rectangles.get(i + 2),
+                rectangles.get(i + 3)));
+        }
+    }
+
+    /** How many solid tiles the tile layers of the loaded map had, see {@link SolidTileMerger}. */
+    public int getSolidTileCount() {
+        return solidTileCount;
+    }
+
+    /** How many of the solid tiles were left out because a collision shape of the map covers them. */
+    public int getCoveredTileCount() {
+        return coveredTileCount;
+    }
+
+    /** How many collision rectangles the solid tiles were merged into. */
+    public int getSolidRectangleCount() {
+        return solidRectangleCount;
+    }
+
+    private void parseMapObjectsToBounds(MapObjects mapObjects, String layerName) {
+
+        for (MapObject mapObject : mapObjects) {
+
+            Rectangle objectBounds = ((RectangleMapObject) mapObject).getRectangle();
+
+            if (layerName.equals("Enemies"))
+                spawnEnemy(objectBounds.x, objectBounds.y, objectBounds.width, objectBounds.height);
+            else
+                collisionBounds.add(objectBounds);
+        }
+    }
+
+    /**
+     * Prepares the world for a map that is loaded by parts, its structures and enemies are then added and removed
+     * while the camera moves through the map, see {@link knight.nameless.streaming.MapStreamer}.
+     */
+    public void beginStreaming(float mapPixelWidth) {
+
+        this.mapPixelWidth = mapPixelWidth;
+
+        collisionBounds.clear();
+        streamedStructureGrid = new SparseSpatialGrid(64);
+        broadPhase = streamedStructureGrid;
+        isStructureTreeOutdated = true;
+    }
+
+    /** Adds a structure of a streamed map and returns its index. */
+    public int addStructure(Rectangle structure) {
+
+        collisionBounds.add(structure);
+        streamedStructureGrid.insert(collisionBounds.size - 1, structure);
+        isStructureTreeOutdated = true;
+
+        return collisionBounds.size - 1;
+    }
+
+    /**
+     * Removes a structure of a streamed map. To keep the indices dense the last structure is moved into the freed
+     * index, the returned value is the index it had before, or -1 if the removed structure was the last one.
+     */
+    public int removeStructure(int index) {
+
+        int lastIndex = collisionBounds.size - 1;
+
+        streamedStructureGrid.remove(index, collisionBounds.get(index));
+
+        if (index != lastIndex) {
+
+            var lastStructure = collisionBounds.get(lastIndex);
+
+            streamedStructureGrid.remove(lastIndex, lastStructure);
+            streamedStructureGrid.insert(index, lastStructure);
+            collisionBounds.set(index, lastStructure);
+        }
+
+        collisionBounds.pop();
+        isStructureTreeOutdated = true;
+
+        return index != lastIndex ? lastIndex : -1;
+    }
+
+    /** Takes an enemy from the pool and adds it to the world, it is updated from the next step on. */
+    public Enemy spawnEnemy(float x, float y, float width, float height) {
+
+        var enemy = enemyPool.obtain();
+        enemy.spawnAt(x, y, width, height);
+        enemy.spawnId = ++spawnCount;
+
+        gameObjects.add(enemy);
+        sweepAndPrune.add(enemy);
+
+        return enemy;
+    }
+
+    /**
+     * Takes the enemy out of the simulation and the drawing right away. It stays in the objects until the end of the
+     * current or next step, when all the despawned objects are removed in one pass and go back to the pool.
+     */
+    public void despawnEnemy(Enemy enemy) {
+
+        if (enemy.isDespawned)
+            return;
+
+        enemy.isDespawned = true;
+        despawnedCount++;
+    }
+
+    //keeps the order of the remaining objects, so the update order and the results do not change
+    private void removeDespawnedObjects() {
+
+        if (despawnedCount == 0)
+            return;
+
+        //before the pool resets the enemies, which clears the flag the sweep looks for
+        sweepAndPrune.removeDespawned();
+
+        int keptCount = 0;
+
+        for (int i = 0; i < gameObjects.size; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            if (gameObject.isDespawned)
+                enemyPool.free((Enemy) gameObject);
+            else
+                gameObjects.set(keptCount++, gameObject);
+        }
+
+        gameObjects.truncate(keptCount);
+        despawnedCount = 0;
+    }
+
+    public EnemyPool getEnemyPool() {
+        return enemyPool;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Array<GameObject> getGameObjects() {
+        return gameObjects;
+    }
+
+    public Array<Rectangle> getCollisionBounds() {
+        return collisionBounds;
+    }
+
+    /**
+     * Fills the set with what overlaps the view: the objects at the position they are drawn at for the alpha, skipping
+     * the ones with nothing to draw, and the structures found through the broad phase.
+     */
+    public void computeVisibleSet(float viewX, float viewY, float viewWidth, float viewHeight, float alpha,
+                                  VisibleSet visibleSet) {
+
+        var view = visibleSet.view.set(viewX, viewY, viewWidth, viewHeight);
+        var visibleObjects = visibleSet.gameObjects;
+
+        visibleObjects.clear();
+
+        for (int i = 0; i < gameObjects.size; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            if (gameObject.isDespawned || !gameObject.isVisible())
+                continue;
+
+            float positionX = gameObject.getInterpolatedX(alpha);
+            float positionY = gameObject.getInterpolatedY(alpha);
+
+            if (positionX < view.x + view.width && positionX + gameObject.bounds.width > view.x
+                && positionY < view.y + view.height && positionY + gameObject.bounds.height > view.y)
+                visibleObjects.add(gameObject);
+        }
+
+        visibleSet.culledObjectCount = gameObjects.size - visibleObjects.size;
+
+        //the broad phase gives every structure in the cells the view touches, the ones beside the view are removed
+        var visibleStructures = visibleSet.structures;
+        broadPhase.query(view, visibleStructures);
+
+        int visibleCount = 0;
+
+        for (int i = 0; i < visibleStructures.size; i++) {
+
+            int structureIndex = visibleStructures.get(i);
+
+            if (collisionBounds.get(structureIndex).overlaps(view))
+                visibleStructures.set(visibleCount++, structureIndex);
+        }
+
+        visibleStructures.size = visibleCount;
+        visibleSet.culledStructureCount = collisionBounds.size - visibleCount;
+    }
+
+    public AabbTree getStructureTree() {
+
+        //a streamed map changes its structures often, so the tree is only rebuilt when someone asks for it
+        if (isStructureTreeOutdated) {
+
+            structureTree.build(collisionBounds);
+            isStructureTreeOutdated = false;
+        }
+
+        return structureTree;
+    }
+
+    public float getMapPixelWidth() {
+        return mapPixelWidth;
+    }
+
+    /**
+     * Times the object updates and the structure collisions of every step apart. The collisions then run after all
+     * the objects moved instead of right after each one, which gives the same result.
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Swept collisions move every object along its step and stop it at the first structure it touches, then slide
+     * the rest of the way along it. The discrete collisions only look at where the object ended up, so a fast object
+     * can pass through a thin structure.
+     */
+    public void setUseSweptCollision(boolean useSweptCollision) {
+        isSweptCollision = useSweptCollision;
+    }
+
+    public boolean isUsingSweptCollision() {
+        return isSweptCollision;
+    }
+
+    /**
+     * Where the buttons of the player come from, polled once at the start of every step. Nothing is pressed until it
+     * is set, and a recording fed to a world loaded from the same level replays the same steps exactly.
+     */
+    public void setInputSource(InputSource inputSource) {
+        this.inputSource = inputSource;
+    }
+
+    public InputSource getInputSource() {
+        return inputSource;
+    }
+
+    /**
+     * With a parallel executor the enemies are updated and collided in chunks on several threads. Every object only
+     * reads its own state and the structures, so the result is bit-identical to the serial update. The player reads
+     * the input, so it always runs on the calling thread.
+     */
+    public void setUpdateExecutor(UpdateExecutor updateExecutor) {
+
+        this.updateExecutor = updateExecutor;
+
+        int chunkCount = updateExecutor.getParallelism() > 1 ? updateExecutor.getParallelism() * CHUNKS_PER_THREAD : 0;
+
+        chunkColliders = new StructureCollider[chunkCount];
+
+        for (int i = 0; i < chunkCount; i++)
+            chunkColliders[i] = new StructureCollider();
+    }
+
+    /**
+     * Keys the simulation rate of the objects off a view of this size centered on the player, usually the size of the
+     * camera view. It is moved with the player at the start of every step, so which objects are throttled only
+     * depends on the state of the world and a replay or a rewind steps them the same way whatever the frame rate or
+     * the camera does. Until it is set every object is simulated on every step.
+     */
+    public void setActivityView(float width, float height) {
+
+        hasActivityArea = true;
+        activityViewWidth = width;
+        activityViewHeight = height;
+    }
+
+    private void moveActivityArea() {
+
+        var bounds = player.bounds;
+
+        float x = bounds.x + bounds.width / 2 - activityViewWidth / 2;
+        float y = bounds.y + bounds.height / 2 - activityViewHeight / 2;
+        float width = activityViewWidth;
+        float height = activityViewHeight;
+
+        activeArea.set(x - ACTIVE_MARGIN, y - ACTIVE_MARGIN, width + ACTIVE_MARGIN * 2, height + ACTIVE_MARGIN * 2);
+        throttledArea.set(
+            x - THROTTLED_MARGIN, y - THROTTLED_MARGIN, width + THROTTLED_MARGIN * 2, height + THROTTLED_MARGIN * 2
+        );
+    }
+
+    public void clearActivityArea() {
+        hasActivityArea = false;
+    }
+
+    /** The game switches to the next level when the player walks off the right end of the map. */
+    public boolean isPlayerPastMapEnd() {
+        return player.bounds.x + player.bounds.width >= mapPixelWidth;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getThrottledCount() {
+        return throttledCount;
+    }
+
+    public int getSleepingCount() {
+        return sleepingCount;
+    }
+
+    private void updateActivity() {
+
+        stepCount++;
+
+        if (hasActivityArea)
+            moveActivityArea();
+
+        activeCount = 0;
+        throttledCount = 0;
+        sleepingCount = 0;
+
+        for (int i = 0; i < gameObjects.size; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            ActivityState activityState = getActivityState(gameObject);
+
+            gameObject.activityState = activityState;
+
+            switch (activityState) {
+
+                case ACTIVE:
+                    gameObject.isAwake = true;
+                    activeCount++;
+                    break;
+
+                case THROTTLED:
+                    //spread over the steps by index, so every step does about the same amount of work, and never
+                    //later than the interval, the index of an object moves when the objects before it despawn
+                    gameObject.isAwake = (stepCount + i) % THROTTLED_STEP_INTERVAL == 0
+                        || gameObject.skippedSteps >= THROTTLED_STEP_INTERVAL - 1;
+                    throttledCount++;
+                    break;
+
+                case SLEEPING:
+                    gameObject.isAwake = false;
+                    sleepingCount++;
+                    break;
+            }
+
+            if (activityState == ActivityState.SLEEPING)
+                gameObject.skippedSteps = 0;
+
+            if (!gameObject.isAwake) {
+
+                gameObject.skipStep();
+
+                if (activityState == ActivityState.THROTTLED)
+                    gameObject.skippedSteps++;
+            }
+        }
+    }
+
+    private ActivityState getActivityState(GameObject gameObject) {
+
+        if (gameObject == player)
+            return ActivityState.ACTIVE;
+
+        //despawned objects wait for the end of the step without being updated
+        if (gameObject.isDespawned)
+            return ActivityState.SLEEPING;
+
+        if (gameObject.canDespawn()) {
+
+            despawnEnemy((Enemy) gameObject);
+            return ActivityState.SLEEPING;
+        }
+
+        if (!hasActivityArea || activeArea.overlaps(gameObject.bounds))
+            return ActivityState.ACTIVE;
+
+        if (throttledArea.overlaps(gameObject.bounds))
+            return ActivityState.THROTTLED;
+
+        return ActivityState.SLEEPING;
+    }
+
+    public void manageStructureCollision(float deltaTime, GameObject gameObject) {
+
+        manageStructureCollision(deltaTime, gameObject, structureCollider);
+    }
+
+    private void manageStructureCollision(float deltaTime, GameObject gameObject, StructureCollider collider) {
+
+        collider.bounds.set(gameObject.bounds);
+        collider.velocityX = gameObject.velocity.x;
+        collider.velocityY = gameObject.velocity.y;
+        //the player is on the ground and can jump
+        collider.landingVelocityY = gameObject == player && player.input.isPressed(InputSnapshot.JUMP)
+            ? JUMP_SPEED * deltaTime : 0;
+
+        if (isSweptCollision)
+            collider.sweep(collisionBounds, broadPhase, gameObject.getStepStartX(), gameObject.getStepStartY());
+        else
+            collider.resolveOverlaps(collisionBounds, broadPhase);
+
+        gameObject.bounds.setPosition(collider.bounds.x, collider.bounds.y);
+        gameObject.velocity.set(collider.velocityX, collider.velocityY);
+    }
+
+    public void update(float deltaTime) {
+        update(deltaTime, inputSource.poll());
+    }
+
+    /** Steps with the buttons given instead of polling the input source, for a caller that reads some of them too. */
+    public void update(float deltaTime, int buttons) {
+
+        player.input.set(buttons);
+
+        if (profiler != null)
+            profiler.begin(Phase.ENTITY_UPDATE);
+
+        updateActivity();
+
+        runPhase(UpdatePhase.UPDATE, deltaTime);
+
+        if (profiler != null) {
+
+            profiler.end(Phase.ENTITY_UPDATE);
+
+            profiler.begin(Phase.STRUCTURE_COLLISION);
+            runPhase(UpdatePhase.COLLIDE, deltaTime);
+            profiler.end(Phase.STRUCTURE_COLLISION);
+
+            profiler.begin(Phase.ENTITY_COLLISION);
+        }
+
+        resolveContacts(deltaTime);
+
+        if (profiler != null)
+            profiler.end(Phase.ENTITY_COLLISION);
+
+        removeDespawnedObjects();
+    }
+
+    //on the calling thread and in the order of the sweep, so the contacts resolve the same way in every update mode
+    private void resolveContacts(float deltaTime) {
+
+        var pairs = sweepAndPrune.findPairs();
+        contactPairCount = pairs.size / 2;
+
+        for (int i = 0; i < pairs.size; i += 2) {
+
+            GameObject first = pairs.get(i);
+            GameObject second = pairs.get(i + 1);
+
+            if (first == player)
+                resolvePlayerContact((Enemy) second, deltaTime);
+
+            else if (second == player)
+                resolvePlayerContact((Enemy) first, deltaTime);
+
+            else
+                resolveEnemyContact((Enemy) first, (Enemy) second);
+        }
+    }
+
+    private void resolvePlayerContact(Enemy enemy, float deltaTime) {
+
+        //an enemy stomped earlier in the same step can't be touched again
+        if (!enemy.hasContacts())
+            return;
+
+        //the player was above the enemy when the step began and is falling on it
+        boolean isStomp = player.velocity.y < 0
+            && player.getStepStartY() >= enemy.getStepStartY() + enemy.bounds.height;
+
+        if (isStomp) {
+
+            enemy.stomp();
+            player.velocity.y = STOMP_BOUNCE * deltaTime;
+            stompCount++;
+
+            if (contactListener != null)
+                contactListener.onStomp(player, enemy);
+        }
+        else {
+
+            playerHitCount++;
+
+            if (contactListener != null)
+                contactListener.onPlayerHit(player, enemy);
+        }
+    }
+
+    private void resolveEnemyContact(Enemy first, Enemy second) {
+
+        boolean isFirstOnTheLeft = first.bounds.x + first.bounds.width / 2 < second.bounds.x + second.bounds.width / 2;
+
+        //only the enemies walking into the other turn around, otherwise they would keep turning while they overlap
+        if (first.isMovingRight == isFirstOnTheLeft)
+            first.changeDirection();
+
+        if (second.isMovingRight != isFirstOnTheLeft)
+            second.changeDirection();
+
+        enemyContactCount++;
+
+        if (contactListener != null)
+            contactListener.onEnemiesMet(first, second);
+    }
+
+    /** Called for every contact between objects, on the thread that updates the world. */
+    public void setContactListener(ContactListener contactListener) {
+        this.contactListener = contactListener;
+    }
+
+    /** How many pairs of objects were touching in the last step. */
+    public int getContactPairCount() {
+        return contactPairCount;
+    }
+
+    public int getStompCount() {
+        return stompCount;
+    }
+
+    public int getPlayerHitCount() {
+        return playerHitCount;
+    }
+
+    public int getEnemyContactCount() {
+        return enemyContactCount;
+    }
+
+    private void runPhase(UpdatePhase phase, float deltaTime) {
+
+        if (chunkColliders.length == 0) {
+
+            for (int i = 0; i < gameObjects.size; i++)
+                updateObject(phase, deltaTime, gameObjects.get(i), structureCollider);
+
+            return;
+        }
+
+        chunkPhase = phase;
+        chunkDeltaTime = deltaTime;
+
+        updateExecutor.execute(chunkColliders.length, chunkTask);
+
+        updateObject(phase, deltaTime, player, structureCollider);
+    }
+
+    private void updateChunk(int chunk) {
+
+        int chunkCount = chunkColliders.length;
+        int start = (int) ((long) gameObjects.size * chunk / chunkCount);
+        int end = (int) ((long) gameObjects.size * (chunk + 1) / chunkCount);
+
+        for (int i = start; i < end; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            if (gameObject != player)
+                updateObject(chunkPhase, chunkDeltaTime, gameObject, chunkColliders[chunk]);
+        }
+    }
+
+    private void updateObject(UpdatePhase phase, float deltaTime, GameObject gameObject, StructureCollider collider) {
+
+        if (!gameObject.isAwake)
+            return;
+
+        switch (phase) {
+
+            case UPDATE:
+                gameObject.update(deltaTime);
+
+                if (profiler == null)
+                    manageStructureCollision(deltaTime, gameObject, collider);
+                break;
+
+            case COLLIDE:
+                manageStructureCollision(deltaTime, gameObject, collider);
+                break;
+        }
+    }
+
+    /**
+     * A hash of the positions and velocities of every object, logged by the headless runner and compared by the
+     * server. Two runs of the same input on the same level end with the same one.
+     */
+    public long getStateHash() {
+
+        long hash = 17;
+
+        for (int i = 0; i < gameObjects.size; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            hash = hash * 31 + Float.floatToIntBits(gameObject.bounds.x);
+            hash = hash * 31 + Float.floatToIntBits(gameObject.bounds.y);
+            hash = hash * 31 + Float.floatToIntBits(gameObject.velocity.x);
+            hash = hash * 31 + Float.floatToIntBits(gameObject.velocity.y);
+        }
+
+        return hash;
+    }
+
+    /** The most bytes {@link #writeState(ByteBuffer)} writes for a world with this many objects. */
+    public static int getMaxStateBytes(int objectCount) {
+        return STATE_HEADER_BYTES + objectCount * GameObject.MAX_STATE_BYTES;
+    }
+
+    /**
+     * Writes the state of the simulation after the last step: the magic number, the version, the step count and the
+     * object count, then every object in update order, the player first. The byte order is the one of the buffer.
+     */
+    public void writeState(ByteBuffer buffer) {
+
+        buffer.putInt(STATE_MAGIC).putInt(STATE_VERSION).putInt(stepCount).putInt(gameObjects.size - despawnedCount);
+
+        for (int i = 0; i < gameObjects.size; i++) {
+
+            GameObject gameObject = gameObjects.get(i);
+
+            if (!gameObject.isDespawned)
+                gameObject.writeState(buffer);
+        }
+    }
+
+    /**
+     * Puts the simulation back in a state written by {@link #writeState(ByteBuffer)} for the same level, the next
+     * steps then give the same results they gave after that state was written.
+     */
+    public void readState(ByteBuffer buffer) {
+
+        if (buffer.getInt() != STATE_MAGIC)
+            throw new GdxRuntimeException("Not a world state");
+
+        int version = buffer.getInt();
+
+        if (version != STATE_VERSION)
+            throw new GdxRuntimeException("World state version " + version + " is not supported");
+
+        stepCount = buffer.getInt();
+        int objectCount = buffer.getInt();
+
+        removeDespawnedObjects();
+
+        //only enemies come and go, every enemy is fully described by its state so any of them can take any record
+        for (int i = objectCount; i < gameObjects.size; i++)
+            despawnEnemy((Enemy) gameObjects.get(i));
+
+        removeDespawnedObjects();
+
+        while (gameObjects.size < objectCount)
+            spawnEnemy(0, 0, 0, 0);
+
+        for (int i = 0; i < gameObjects.size; i++)
+            gameObjects.get(i).readState(buffer);
+    }
+
+    public void dispose() {
+
+        for (var gameObject : gameObjects)
+            gameObject.dispose();
+
+        gameObjects.clear();
+        sweepAndPrune.clear();
+        enemyPool.clear();
+    }
+}
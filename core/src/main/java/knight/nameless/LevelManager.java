@@ -0,0 +1,186 @@
+package knight.nameless;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+import knight.nameless.assets.AssetPipeline;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.streaming.LevelFiles;
+
+/**
+ * Plays the levels one after the other, back to the first after the last. While a level is played the next one
+ * loads in the background: the asset pipeline decodes its map, then its world, with the structure index and the
+ * enemies, is built on a loader thread. Switching to it only swaps references, and the level left behind is
+ * disposed over the frames that follow, never in the frame of the switch.
+ * <p>
+ * Everything but the loader thread runs on the render thread, through {@link #update()} once per frame.
+ */
+public class LevelManager implements Disposable {
+
+    public static class Level {
+
+        public final String mapPath;
+        final String assetPath;
+        public TiledMap tiledMap;
+        public GameWorld world;
+
+        Level(String mapPath) {
+
+            this.mapPath = mapPath;
+            assetPath = LevelFiles.getMapAssetPath(mapPath);
+        }
+    }
+
+    private final AssetPipeline assets;
+    private final String[] mapPaths;
+    private int levelIndex;
+    private SpriteRegistry sprites;
+    //the worlds are built here, on the web it runs the task right away
+    private final AsyncExecutor executor = new AsyncExecutor(1, "LevelLoader");
+    private Level level;
+    private Level nextLevel;
+    private AsyncResult<GameWorld> nextWorld;
+    //left behind by the last switch, disposed by the next updates
+    private Level retiredLevel;
+    private int switchCount;
+
+    /** The maps are played in the order given, from the first level on. */
+    public LevelManager(AssetPipeline assets, int firstLevel, String... mapPaths) {
+
+        this.assets = assets;
+        this.mapPaths = mapPaths;
+        levelIndex = firstLevel;
+    }
+
+    /** Queues the map of the first level, it loads with everything else before the game starts. */
+    public void queueFirstLevel() {
+
+        level = new Level(mapPaths[levelIndex]);
+        assets.load(level.assetPath, TiledMap.class);
+    }
+
+    /** Builds the world of the first level once the pipeline loaded its map, the next level starts loading after. */
+    public Level startFirstLevel(SpriteRegistry sprites) {
+
+        this.sprites = sprites;
+
+        level.tiledMap = assets.get(level.assetPath, TiledMap.class);
+        level.world = buildWorld(level.tiledMap);
+
+        return level;
+    }
+
+    private GameWorld buildWorld(TiledMap tiledMap) {
+
+        var world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+
+        return world;
+    }
+
+    /** Moves the loading of the next level one stage further, or disposes a part of the level left behind. */
+    public void update() {
+
+        //the map and the world of the old level are let go in separate frames, and before anything else loads
+        if (retiredLevel != null) {
+
+            if (retiredLevel.world != null) {
+
+                retiredLevel.world.dispose();
+                retiredLevel.world = null;
+                return;
+            }
+
+            assets.unload(retiredLevel.assetPath);
+            retiredLevel = null;
+            return;
+        }
+
+        if (nextLevel == null) {
+
+            nextLevel = new Level(mapPaths[(levelIndex + 1) % mapPaths.length]);
+            assets.load(nextLevel.assetPath, TiledMap.class);
+            return;
+        }
+
+        if (nextLevel.tiledMap == null) {
+
+            //the lanes decode the map on their threads, only the texture uploads happen here
+            if (!assets.update())
+                return;
+
+            var tiledMap = assets.get(nextLevel.assetPath, TiledMap.class);
+
+            nextLevel.tiledMap = tiledMap;
+            nextWorld = executor.submit(() -> buildWorld(tiledMap));
+            return;
+        }
+
+        if (nextWorld != null && nextWorld.isDone()) {
+
+            nextLevel.world = nextWorld.get();
+            nextWorld = null;
+        }
+    }
+
+    public boolean isNextLevelReady() {
+        return nextLevel != null && nextLevel.world != null;
+    }
+
+    /**
+     * Swaps in the next level, which must be ready. Its world is handed as it was built, the caller sets it up like
+     * the one it replaces.
+     */
+    public Level switchToNextLevel() {
+
+        if (!isNextLevelReady())
+            throw new IllegalStateException("The next level is not loaded yet");
+
+        retiredLevel = level;
+        level = nextLevel;
+        nextLevel = null;
+        levelIndex = (levelIndex + 1) % mapPaths.length;
+        switchCount++;
+
+        return level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    public int getSwitchCount() {
+        return switchCount;
+    }
+
+    private void disposeLevel(Level level) {
+
+        if (level == null)
+            return;
+
+        if (level.world != null)
+            level.world.dispose();
+
+        assets.unload(level.assetPath);
+    }
+
+    @Override
+    public void dispose() {
+
+        //waits for a world still being built, it is disposed with the rest
+        executor.dispose();
+
+        if (nextWorld != null && nextLevel != null)
+            nextLevel.world = nextWorld.get();
+
+        disposeLevel(retiredLevel);
+        disposeLevel(level);
+        disposeLevel(nextLevel);
+    }
+}
@@ -7,143 +7,206 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.maps.*;
-import com.badlogic.gdx.maps.objects.RectangleMapObject;
-import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Rectangle;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.ExtendViewport;
 
-import knight.nameless.objects.Enemy;
+import knight.nameless.assets.AssetPipeline;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.input.InputSnapshot;
+import knight.nameless.input.InputSource;
+import knight.nameless.input.KeyboardInput;
 import knight.nameless.objects.GameObject;
-import knight.nameless.objects.Player;
+import knight.nameless.profiling.FrameProfiler;
+import knight.nameless.profiling.FrameProfiler.Phase;
+import knight.nameless.profiling.ProfileExporter;
+import knight.nameless.profiling.ProfilerOverlay;
+import knight.nameless.snapshot.RewindBuffer;
+import knight.nameless.streaming.ChunkSource;
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.MapStreamer;
 
 public class Platform extends ApplicationAdapter {
 
     public final int SCREEN_WIDTH = 640;
     public final int SCREEN_HEIGHT = 360;
+    //the physics constants are tuned per step, so the simulation always advances in steps of this size
+    public static final float TIME_STEP = 1 / 60f;
+    //a slow frame runs at most this many steps, the remaining time is dropped to avoid falling further behind
+    public static final int MAX_STEPS_PER_FRAME = 5;
+    private float accumulator;
     private ShapeRenderer shapeRenderer;
     public OrthographicCamera camera = new OrthographicCamera();
     public ExtendViewport viewport;
-    private Player player;
-    private TextureAtlas atlas;
-    private TiledMap tiledMap;
+    private GameWorld world;
+    private static final String ATLAS_PATH = "images/sprites.atlas";
+    //the streamed map, and the level the game starts on otherwise
+    private static final String MAP_PATH = "maps/playground/test3.tmx";
+    public static final String[] LEVEL_PATHS = {
+        "maps/playground/test.tmx", "maps/playground/test2.tmx", "maps/playground/test3.tmx",
+        "maps/playground/test4.tmx"
+    };
+    //the next level is loaded in the background, N or walking off the right end of the level switches to it
+    private LevelManager levels;
+    private boolean isLevelSwitchRequested;
+    //the buttons of the last step, holding N switches only once
+    private int previousButtons;
+    //the atlas and the map load side by side, while the render thread draws how far they are
+    private static final int ASSET_LANES = 2;
+    //how long a loading frame waits for the lanes, so the progress bar keeps moving
+    private static final int LOADING_MILLIS_PER_FRAME = 12;
+    private AssetPipeline assets;
+    private boolean isLoaded;
+    private long createTime;
+    private boolean isFirstFrameLogged;
+    //the frames every object draws, built once and shared
+    private SpriteRegistry sprites;
     private OrthogonalTiledMapRenderer mapRenderer;
-    private final Array<Rectangle> collisionBounds = new Array<>();
     private boolean isDebugRenderer = false;
     private boolean isDebugCamera = false;
-    private final Array<GameObject> gameObjects = new Array<>();
+    private final UpdateExecutor updateExecutor;
+    //with a streamed map only the chunks around the camera are loaded, for levels of any size
+    private final boolean isStreamingMap;
+    private static final long MAP_MEMORY_BUDGET = 8 * 1024 * 1024;
+    private ChunkSource chunkSource;
+    private MapStreamer mapStreamer;
+    private final FrameProfiler profiler = new FrameProfiler();
+    //optional, writes the profiler reports somewhere off the render thread
+    private final ProfileExporter profileExporter;
+    //the keyboard, or a recording of it when replaying a session
+    private final InputSource inputSource;
+    private ProfilerOverlay profilerOverlay;
+    private boolean isProfilerOverlay = false;
+    private final Matrix4 overlayProjection = new Matrix4();
+    private final Rectangle viewArea = new Rectangle();
+    //only what the camera sees is drawn
+    private final VisibleSet visibleSet = new VisibleSet();
+    //every step is kept for this long, holding R goes back through them
+    private static final int REWIND_SECONDS = 10;
+    //null when the map is streamed
+    private RewindBuffer rewindBuffer;
+
+    public Platform() {
+        this(UpdateExecutor.SERIAL, false, null, new KeyboardInput());
+    }
+
+    public Platform(UpdateExecutor updateExecutor, boolean isStreamingMap, ProfileExporter profileExporter,
+                    InputSource inputSource) {
+
+        this.updateExecutor = updateExecutor;
+        this.isStreamingMap = isStreamingMap;
+        this.profileExporter = profileExporter;
+        this.inputSource = inputSource;
+    }
 
     @Override
     public void create() {
 
+        createTime = TimeUtils.nanoTime();
+
         camera.position.set(SCREEN_WIDTH / 2f, SCREEN_HEIGHT / 2f, 0);
         viewport = new ExtendViewport(SCREEN_WIDTH, SCREEN_HEIGHT, camera);
 
         //the batch and shape needs to be initialized in the create method
         shapeRenderer = new ShapeRenderer();
+        profiler.setExporter(profileExporter);
 
-        atlas = new TextureAtlas("images/sprites.atlas");
-        player = new Player(new Rectangle(450, 50, 32, 32), atlas);
+        //nothing is read here, the first frames draw the progress while the lanes load
+        assets = new AssetPipeline(ASSET_LANES);
+        assets.load(ATLAS_PATH, TextureAtlas.class);
 
-        gameObjects.add(player);
+        //the compiled level is used when the build made one, it loads without parsing any XML
+        if (!isStreamingMap) {
 
-        tiledMap = new TmxMapLoader().load("maps/playground/test3.tmx");
-        mapRenderer = setupMap(tiledMap);
+            levels = new LevelManager(assets, 2, LEVEL_PATHS);
+            levels.queueFirstLevel();
+        }
     }
 
-    public OrthogonalTiledMapRenderer setupMap(TiledMap tiledMap) {
-
-        MapLayers mapLayers = tiledMap.getLayers();
+    private void finishLoading() {
 
-        for (MapLayer mapLayer : mapLayers) {
+        sprites = new SpriteRegistry(assets.get(ATLAS_PATH, TextureAtlas.class));
 
-            parseMapObjectsToBounds(mapLayer.getObjects(), mapLayer.getName());
-        }
-
-        return new OrthogonalTiledMapRenderer(tiledMap, 1);
-    }
+        if (isStreamingMap) {
 
-    private void parseMapObjectsToBounds(MapObjects mapObjects, String layerName) {
+            world = new GameWorld(sprites);
+            setupWorld(world);
 
-        for (MapObject mapObject : mapObjects) {
+            chunkSource = LevelFiles.openChunkSource(MAP_PATH);
+            mapStreamer = new MapStreamer(chunkSource, world, MAP_MEMORY_BUDGET);
+            mapRenderer = new OrthogonalTiledMapRenderer(mapStreamer.getTiledMap(), 1);
+        }
+        else {
 
-            Rectangle objectBounds = ((RectangleMapObject) mapObject).getRectangle();
+            //the map belongs to the pipeline, which unloads it with its tile set images
+            var level = levels.startFirstLevel(sprites);
 
-            if (layerName.equals("Enemies"))
-                gameObjects.add(new Enemy(objectBounds, atlas));
-            else
-                collisionBounds.add(objectBounds);
+            world = level.world;
+            setupWorld(world);
+            mapRenderer = new OrthogonalTiledMapRenderer(level.tiledMap, 1);
         }
-    }
 
-    @Override
-    public void resize(int width, int height) {
-        viewport.update(width, height);
-    }
+        //the streamer keeps which chunk spawned which enemy and which structures it added, none of that is in the
+        //world state, so a rewind would leave the loaded chunks out of step with the world and it is not offered
+        if (!isStreamingMap)
+            createRewindBuffer();
 
-    private boolean checkCollisionInX(Rectangle bounds, Rectangle platform) {
+        isLoaded = true;
 
-        return bounds.x + bounds.width > platform.x
-            && bounds.x < platform.x + platform.width;
+        //concatenated, String.format is not available on the web backend
+        Gdx.app.log("Platform", "Assets loaded in " + TimeUtils.nanosToMillis(assets.getLoadNanos()) + " ms on "
+            + assets.getLaneCount() + " lanes");
     }
 
-    private boolean checkCollisionInY(Rectangle bounds, Rectangle platform) {
+    private void createRewindBuffer() {
 
-        return bounds.y + bounds.height > platform.y
-            && bounds.y < platform.y + platform.height;
+        int capacity = Math.round(REWIND_SECONDS / TIME_STEP);
+        rewindBuffer = new RewindBuffer(capacity, Math.max(64, world.getGameObjects().size * 2));
     }
 
-    private void manageStructureCollision(float deltaTime, GameObject gameObject) {
+    private void setupWorld(GameWorld world) {
 
-        for (var structure : collisionBounds) {
+        world.setUpdateExecutor(updateExecutor);
+        world.setProfiler(profiler);
+        world.setActivityView(SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
 
-            if (gameObject.bounds.overlaps(structure)) {
+    private void updateLevels() {
 
-//                If the player previous position is within the x bounds of the platform,
-//                then we need to resolve the collision by changing the y value
-                if (checkCollisionInX(gameObject.getPreviousPosition(), structure)) {
+        levels.update();
 
-//                    Player was falling downwards. Resolve upwards.
-                    if (gameObject.velocity.y < 0) {
+        //a switch asked for before the next level is ready waits for it
+        if (isLevelSwitchRequested && levels.isNextLevelReady())
+            switchLevel();
+    }
 
-                        gameObject.bounds.y = structure.y + structure.height;
-                        gameObject.velocity.y = 0;
+    //only references change, the old level is disposed by the next updates of the levels
+    private void switchLevel() {
 
-                        var isPlayer = gameObject instanceof Player;
-                        //the player is on the ground and can jump
-                        if (isPlayer && player.velocity.y == 0 && Gdx.input.isKeyPressed(Input.Keys.SPACE))
-                            player.velocity.y = 800 * deltaTime;
-                    }
+        long startTime = TimeUtils.nanoTime();
 
-//                     Player was moving upwards. Resolve downwards
-                    else {
+        var level = levels.switchToNextLevel();
 
-                        //check this case. For the collision bug
-                        gameObject.bounds.y = structure.y - gameObject.bounds.height;
-                        gameObject.velocity.y = 0;
-                    }
-                }
-                //  If the player previous position is within the y bounds of the platform,
-//                then we need to resolve the collision by changing the x value
-                else if (checkCollisionInY(gameObject.getPreviousPosition(), structure)) {
+        world = level.world;
+        setupWorld(world);
+        mapRenderer.setMap(level.tiledMap);
 
-//                     Player was traveling right. Resolve to the left
-                    if (gameObject.velocity.x > 0)
-                        gameObject.bounds.x = structure.x - gameObject.bounds.width;
+        rewindBuffer.clear();
+        accumulator = 0;
+        camera.position.set(SCREEN_WIDTH / 2f, SCREEN_HEIGHT / 2f, 0);
+        isLevelSwitchRequested = false;
 
-//                     Player was traveling left. Resolve to the right
-                    else
-                        gameObject.bounds.x = structure.x + structure.width;
+        //in microseconds, a preloaded level switches in well under a millisecond
+        Gdx.app.log("Platform", "Switched to " + level.mapPath + " in " + TimeUtils.timeSinceNanos(startTime) / 1000
+            + " us");
+    }
 
-                    gameObject.velocity.x = 0;
-                }
-            }
-        }
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height);
     }
 
     private void controlCameraPosition(OrthographicCamera camera) {
@@ -167,79 +230,228 @@ public class Platform extends ApplicationAdapter {
             camera.zoom -= 0.1f;
     }
 
-    public boolean isPlayerInsideMapBounds(Vector2 playerPixelPosition) {
-
-        MapProperties properties = tiledMap.getProperties();
-
-        int mapWidth = properties.get("width", Integer.class);
-        int tilePixelWidth = properties.get("tilewidth", Integer.class);
-        int mapPixelWidth = mapWidth * tilePixelWidth;
+    public boolean isPlayerInsideMapBounds(float playerPositionX) {
 
         var midScreenWidth = SCREEN_WIDTH / 2f;
 
-        return playerPixelPosition.x > midScreenWidth && playerPixelPosition.x < mapPixelWidth - midScreenWidth;
+        return playerPositionX > midScreenWidth && playerPositionX < world.getMapPixelWidth() - midScreenWidth;
     }
 
-    private void update(float deltaTime) {
+    private void updateFixedSteps(float deltaTime) {
+
+        accumulator += deltaTime;
+
+        int steps = 0;
+
+        //no step runs while a level switch waits for the next level, so a replay switches after the same step
+        while (accumulator >= TIME_STEP && steps < MAX_STEPS_PER_FRAME && !isLevelSwitchRequested) {
+
+            //polled here and not by the world, so rewinding and switching levels are recorded with the movement
+            int buttons = inputSource.poll();
+
+            if (rewindBuffer != null && (buttons & InputSnapshot.REWIND) != 0)
+                rewindBuffer.rewind(world, 1);
+
+            else {
 
-        for (GameObject gameObject : gameObjects) {
+                world.update(TIME_STEP, buttons);
 
-            gameObject.update(deltaTime);
-            manageStructureCollision(deltaTime, gameObject);
+                if (rewindBuffer != null) {
+
+                    profiler.begin(Phase.SNAPSHOT);
+                    rewindBuffer.record(world);
+                    profiler.end(Phase.SNAPSHOT);
+                }
+            }
+
+            boolean isNextLevelPressed = (buttons & ~previousButtons & InputSnapshot.NEXT_LEVEL) != 0;
+
+            if (levels != null && (isNextLevelPressed || world.isPlayerPastMapEnd()))
+                isLevelSwitchRequested = true;
+
+            previousButtons = buttons;
+            accumulator -= TIME_STEP;
+            steps++;
         }
 
+        if (accumulator >= TIME_STEP)
+            accumulator %= TIME_STEP;
+    }
+
+    //what the camera sees, the zoom of the debug camera included
+    private Rectangle getViewArea() {
+
+        float viewWidth = viewport.getWorldWidth() * camera.zoom;
+        float viewHeight = viewport.getWorldHeight() * camera.zoom;
+
+        float viewX = camera.position.x - viewWidth / 2;
+        float viewY = camera.position.y - viewHeight / 2;
+
+        return viewArea.set(viewX, viewY, viewWidth, viewHeight);
+    }
+
+    private void updateMapStreamer() {
+
+        var view = getViewArea();
+
+        mapStreamer.update(view.x, view.y, view.width, view.height);
+    }
+
+    private void updateVisibleSet(float alpha) {
+
+        var view = getViewArea();
+
+        //the debug view draws the objects where they are, not interpolated
+        world.computeVisibleSet(view.x, view.y, view.width, view.height, isDebugRenderer ? 1 : alpha, visibleSet);
+    }
+
+    private void handleDebugKeys() {
+
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F1))
+            isDebugRenderer = !isDebugRenderer;
+
         if (Gdx.input.isKeyJustPressed(Input.Keys.F2))
             isDebugCamera = !isDebugCamera;
 
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F5))
+            isProfilerOverlay = !isProfilerOverlay;
+    }
+
+    private void updateCamera(float alpha) {
+
         if (isDebugCamera)
             controlCameraPosition(camera);
 
-        var playerPosition = new Vector2(player.bounds.x, player.bounds.y);
+        float playerPositionX = world.getPlayer().getInterpolatedX(alpha);
 
-        var isPlayerInsideMapBounds = isPlayerInsideMapBounds(playerPosition);
+        var isPlayerInsideMapBounds = isPlayerInsideMapBounds(playerPositionX);
 
         if (!isDebugCamera && isPlayerInsideMapBounds)
-            camera.position.set(playerPosition.x, 180, 0);
+            camera.position.set(playerPositionX, 180, 0);
 
         camera.update();
     }
 
-    void draw() {
+    void draw(float alpha) {
+
+        profiler.begin(Phase.MAP_RENDER);
 
         mapRenderer.setView(camera);
 
         mapRenderer.render();
 
+        profiler.end(Phase.MAP_RENDER);
+        profiler.begin(Phase.SPRITE_DRAW);
+
         mapRenderer.getBatch().setProjectionMatrix(viewport.getCamera().combined);
 
         mapRenderer.getBatch().begin();
 
-        for (GameObject gameObject : gameObjects) {
+        for (GameObject gameObject : visibleSet.gameObjects) {
 
-            gameObject.draw(mapRenderer.getBatch());
+            gameObject.draw(mapRenderer.getBatch(), alpha);
         }
 
         mapRenderer.getBatch().end();
+
+        profiler.end(Phase.SPRITE_DRAW);
+    }
+
+    private void drawProfilerOverlay() {
+
+        if (profilerOverlay == null)
+            profilerOverlay = new ProfilerOverlay();
+
+        var batch = mapRenderer.getBatch();
+
+        overlayProjection.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        batch.setProjectionMatrix(overlayProjection);
+
+        batch.begin();
+        profilerOverlay.draw(batch, profiler, visibleSet, 10, Gdx.graphics.getHeight() - 10);
+        batch.end();
+    }
+
+    private void drawLoadingProgress() {
+
+        float barWidth = SCREEN_WIDTH / 2f;
+        float barX = camera.position.x - barWidth / 2;
+        float barY = camera.position.y - 4;
+
+        shapeRenderer.setProjectionMatrix(viewport.getCamera().combined);
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+
+        shapeRenderer.setColor(Color.DARK_GRAY);
+        shapeRenderer.rect(barX, barY, barWidth, 8);
+
+        shapeRenderer.setColor(Color.WHITE);
+        shapeRenderer.rect(barX, barY, barWidth * assets.getProgress(), 8);
+
+        shapeRenderer.end();
     }
 
     @Override
     public void render() {
 
+        if (!isLoaded) {
+
+            ScreenUtils.clear(Color.BLACK);
+
+            if (assets.update(LOADING_MILLIS_PER_FRAME))
+                finishLoading();
+
+            drawLoadingProgress();
+            return;
+        }
+
+        profiler.begin(Phase.INPUT);
+        handleDebugKeys();
+        profiler.end(Phase.INPUT);
+
+        if (levels != null) {
+
+            profiler.begin(Phase.LEVEL_LOADING);
+            updateLevels();
+            profiler.end(Phase.LEVEL_LOADING);
+        }
+
         float deltaTime = Gdx.graphics.getDeltaTime();
 
-        System.out.println(deltaTime);
+        if (mapStreamer != null)
+            updateMapStreamer();
 
-        update(deltaTime);
+        //the world times its own update and collision phases on every step
+        updateFixedSteps(deltaTime);
 
-        if (Gdx.input.isKeyJustPressed(Input.Keys.F1))
-            isDebugRenderer = !isDebugRenderer;
+        //how far the frame is between the last two steps, used to interpolate what is drawn
+        float alpha = accumulator / TIME_STEP;
+
+        profiler.begin(Phase.CAMERA_UPDATE);
+        updateCamera(alpha);
+        profiler.end(Phase.CAMERA_UPDATE);
+
+        profiler.begin(Phase.CULLING);
+        updateVisibleSet(alpha);
+        profiler.end(Phase.CULLING);
 
         ScreenUtils.clear(Color.BLACK);
 
         if (!isDebugRenderer)
-            draw();
+            draw(alpha);
         else
             debugDraw();
+
+        if (isProfilerOverlay)
+            drawProfilerOverlay();
+
+        profiler.endFrame();
+
+        if (!isFirstFrameLogged) {
+
+            isFirstFrameLogged = true;
+            Gdx.app.log("Platform", "First frame drawn " + TimeUtils.nanosToMillis(TimeUtils.timeSinceNanos(createTime))
+                + " ms after start");
+        }
     }
 
     private void debugDraw() {
@@ -249,14 +461,17 @@ public class Platform extends ApplicationAdapter {
 
         shapeRenderer.setColor(Color.GREEN);
 
-        for (var structure : collisionBounds) {
+        var collisionBounds = world.getCollisionBounds();
 
+        for (int i = 0; i < visibleSet.structures.size; i++) {
+
+            var structure = collisionBounds.get(visibleSet.structures.get(i));
             shapeRenderer.rect(structure.x, structure.y, structure.width, structure.height);
         }
 
         shapeRenderer.setColor(Color.WHITE);
 
-        for (var gameObject : gameObjects) {
+        for (var gameObject : visibleSet.gameObjects) {
 
             gameObject.draw(shapeRenderer);
         }
@@ -268,13 +483,35 @@ public class Platform extends ApplicationAdapter {
     public void dispose() {
 
         shapeRenderer.dispose();
-        tiledMap.dispose();
-        mapRenderer.dispose();
-        atlas.dispose();
 
-        for (var gameObject : gameObjects)
-            gameObject.dispose();
+        if (mapRenderer != null)
+            mapRenderer.dispose();
+
+        if (chunkSource != null)
+            chunkSource.dispose();
+
+        if (profilerOverlay != null)
+            profilerOverlay.dispose();
+
+        if (profileExporter != null) {
+
+            profiler.finishReport();
+            profileExporter.dispose();
+        }
+
+        //the worlds and the maps of the levels
+        if (levels != null)
+            levels.dispose();
+
+        else if (world != null)
+            world.dispose();
+
+        if (sprites != null)
+            sprites.dispose();
 
-        gameObjects.clear();
+        //the maps and the atlas go with the pipeline, disposing the textures the registry already released does nothing
+        assets.dispose();
+        updateExecutor.dispose();
+        inputSource.dispose();
     }
 }
@@ -0,0 +1,33 @@
+package knight.nameless;
+
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.function.IntConsumer;
+
+/** Runs the chunks of the world update, either one after the other or spread over several threads. */
+public interface UpdateExecutor extends Disposable {
+
+    UpdateExecutor SERIAL = new UpdateExecutor() {
+
+        @Override
+        public int getParallelism() {
+            return 1;
+        }
+
+        @Override
+        public void execute(int chunkCount, IntConsumer chunkTask) {
+
+            for (int chunk = 0; chunk < chunkCount; chunk++)
+                chunkTask.accept(chunk);
+        }
+
+        @Override
+        public void dispose() {
+        }
+    };
+
+    int getParallelism();
+
+    /** Calls the task once for every chunk index and returns when all of them have finished. */
+    void execute(int chunkCount, IntConsumer chunkTask);
+}
@@ -0,0 +1,38 @@
+package knight.nameless;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+import knight.nameless.objects.GameObject;
+
+/**
+ * The objects and structures inside a view, filled by {@link GameWorld#computeVisibleSet}, and how many of each were
+ * left out. Only this set is drawn, so the drawing cost follows what is on screen instead of the size of the level.
+ */
+public class VisibleSet {
+
+    public final Rectangle view = new Rectangle();
+    //in the same order as the world objects, so they are drawn in the same order as without culling
+    public final Array<GameObject> gameObjects = new Array<>();
+    /** Indices into {@link GameWorld#getCollisionBounds()}. */
+    public final IntArray structures = new IntArray();
+    int culledObjectCount;
+    int culledStructureCount;
+
+    public int getDrawnObjectCount() {
+        return gameObjects.size;
+    }
+
+    public int getCulledObjectCount() {
+        return culledObjectCount;
+    }
+
+    public int getDrawnStructureCount() {
+        return structures.size;
+    }
+
+    public int getCulledStructureCount() {
+        return culledStructureCount;
+    }
+}
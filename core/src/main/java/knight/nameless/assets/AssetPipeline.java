@@ -0,0 +1,186 @@
+package knight.nameless.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.async.ThreadUtils;
+
+import knight.nameless.streaming.BinaryLevel;
+import knight.nameless.streaming.BinaryLevelAssetLoader;
+
+/**
+ * Loads assets in the background while the render thread keeps drawing. An AssetManager reads and decodes one
+ * asset at a time on its own loader thread, so the pipeline spreads the assets over a few managers, its lanes:
+ * the atlas, the map XML and the images are read and decoded side by side, and only the texture uploads run on
+ * the render thread, in {@link #update(int)}.
+ * <p>
+ * Every lane loads maps from .tmx files and from compiled levels. An asset and the ones it depends on, like the
+ * tile set images of a map, load in the same lane.
+ */
+public class AssetPipeline implements Disposable {
+
+    private final Array<AssetManager> lanes = new Array<>();
+    //how many assets were queued in every lane, a new one goes to the lane with the fewest
+    private final IntArray laneAssetCounts = new IntArray();
+    private final ObjectMap<String, AssetManager> assetLanes = new ObjectMap<>();
+    private long loadStartTime;
+    private long loadNanos;
+    private boolean isLoading;
+
+    public AssetPipeline(int laneCount) {
+
+        var resolver = new InternalFileHandleResolver();
+
+        for (int i = 0; i < laneCount; i++) {
+
+            var lane = new AssetManager(resolver);
+            lane.setLoader(TiledMap.class, ".tmx", new TmxMapLoader(resolver));
+            lane.setLoader(TiledMap.class, BinaryLevel.EXTENSION, new BinaryLevelAssetLoader(resolver));
+
+            lanes.add(lane);
+            laneAssetCounts.add(0);
+        }
+    }
+
+    public <T> void load(String fileName, Class<T> type) {
+
+        if (!isLoading) {
+
+            isLoading = true;
+            loadStartTime = TimeUtils.nanoTime();
+        }
+
+        int laneIndex = 0;
+
+        for (int i = 1; i < lanes.size; i++) {
+
+            if (laneAssetCounts.get(i) < laneAssetCounts.get(laneIndex))
+                laneIndex = i;
+        }
+
+        var lane = lanes.get(laneIndex);
+        lane.load(fileName, type);
+
+        laneAssetCounts.incr(laneIndex, 1);
+        assetLanes.put(fileName, lane);
+    }
+
+    /**
+     * Lets every lane finish what its loader thread has ready, for about as long as given, and returns true once
+     * everything queued is loaded. Called on the render thread, once per frame while loading.
+     */
+    public boolean update(int millis) {
+
+        long endTime = TimeUtils.millis() + millis;
+
+        while (true) {
+
+            if (update())
+                return true;
+
+            if (TimeUtils.millis() > endTime)
+                return false;
+
+            ThreadUtils.yield();
+        }
+    }
+
+    /** Gives every lane a single turn without waiting, for loading in the background of a running game. */
+    public boolean update() {
+
+        boolean isFinished = true;
+
+        //every lane gets its turn, a slow one does not hold back the uploads of the others
+        for (var lane : lanes)
+            isFinished &= lane.update();
+
+        if (isFinished && isLoading) {
+
+            isLoading = false;
+            loadNanos = TimeUtils.nanoTime() - loadStartTime;
+        }
+
+        return isFinished;
+    }
+
+    /** Blocks until everything queued is loaded. */
+    public void finishLoading() {
+
+        boolean isFinished = false;
+
+        while (!isFinished)
+            isFinished = update(16);
+    }
+
+    /** From 0 to 1, the mean of the lanes that were given something to load. */
+    public float getProgress() {
+
+        float progress = 0;
+        int usedLanes = 0;
+
+        for (int i = 0; i < lanes.size; i++) {
+
+            if (laneAssetCounts.get(i) == 0)
+                continue;
+
+            progress += lanes.get(i).getProgress();
+            usedLanes++;
+        }
+
+        return usedLanes == 0 ? 1 : progress / usedLanes;
+    }
+
+    public boolean isLoaded(String fileName) {
+
+        var lane = assetLanes.get(fileName);
+
+        return lane != null && lane.isLoaded(fileName);
+    }
+
+    public <T> T get(String fileName, Class<T> type) {
+
+        var lane = assetLanes.get(fileName);
+
+        if (lane == null)
+            throw new IllegalArgumentException(fileName + " was never queued");
+
+        return lane.get(fileName, type);
+    }
+
+    /** Disposes the asset and the ones it depends on, unless something else loaded still uses them. */
+    public void unload(String fileName) {
+
+        var lane = assetLanes.remove(fileName);
+
+        if (lane == null)
+            return;
+
+        lane.unload(fileName);
+        laneAssetCounts.incr(lanes.indexOf(lane, true), -1);
+    }
+
+    public int getLaneCount() {
+        return lanes.size;
+    }
+
+    /** How long the last batch of assets took, from the first one queued to the last one uploaded. */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    @Override
+    public void dispose() {
+
+        for (var lane : lanes)
+            lane.dispose();
+
+        lanes.clear();
+        assetLanes.clear();
+    }
+}
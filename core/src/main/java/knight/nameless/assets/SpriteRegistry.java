@@ -0,0 +1,190 @@
+package knight.nameless.assets;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Builds the animations and frames of the atlas regions once and hands the same ones to every object, so a
+ * thousand enemies share eleven frames instead of having eleven each. The objects must not change what they get,
+ * flipping included, since every other object draws the same regions.
+ * <p>
+ * It takes over the atlas and counts the references to its textures: one of its own, released by
+ * {@link #dispose()}, and one per object that draws them. A texture is disposed when the last one is released,
+ * whichever that is.
+ * <p>
+ * The next level is built on a loader thread while the current one plays, so handing out frames and counting
+ * references is synchronized. Objects only do either when they are created or disposed, never per frame.
+ */
+public class SpriteRegistry implements Disposable {
+
+    //rough sizes on a 64-bit JVM, only used to report what sharing the frames saves
+    private static final int REGION_BYTES = 48;
+    private static final int ANIMATION_BYTES = 64;
+    private final TextureAtlas atlas;
+    private final ObjectMap<String, SharedAnimation> animations = new ObjectMap<>();
+    private final ObjectMap<String, SharedAnimation> firstFrames = new ObjectMap<>();
+    private final ObjectIntMap<Texture> textureReferences = new ObjectIntMap<>();
+    private boolean isDisposed;
+
+    private static class SharedAnimation {
+
+        Animation<TextureRegion> animation;
+        TextureRegion firstFrame;
+        int frameCount;
+        int userCount;
+    }
+
+    public SpriteRegistry(TextureAtlas atlas) {
+
+        this.atlas = atlas;
+
+        for (var texture : atlas.getTextures())
+            textureReferences.put(texture, 1);
+    }
+
+    /**
+     * The animation of the frames laid side by side in the region, every frame {@link #getFrameDuration()} long.
+     * The region name is the key, so it must always be asked with the same frame count and size.
+     */
+    public synchronized Animation<TextureRegion> getAnimation(String regionName, int frameCount, int frameWidth, int frameHeight) {
+
+        var shared = animations.get(regionName);
+
+        if (shared == null) {
+
+            var region = findRegion(regionName);
+            var frames = new Array<TextureRegion>(frameCount);
+
+            for (int i = 0; i < frameCount; i++)
+                frames.add(new TextureRegion(region, i * frameWidth, 0, frameWidth, frameHeight));
+
+            shared = new SharedAnimation();
+            shared.animation = new Animation<>(getFrameDuration(), frames);
+            shared.frameCount = frameCount;
+            animations.put(regionName, shared);
+        }
+        else if (shared.frameCount != frameCount)
+            throw new IllegalArgumentException(regionName + " has " + shared.frameCount + " frames, not " + frameCount);
+
+        shared.userCount++;
+
+        return shared.animation;
+    }
+
+    /** The top left frame of the region, for the objects that show a single frame of it. */
+    public synchronized TextureRegion getFirstFrame(String regionName, int frameWidth, int frameHeight) {
+
+        var shared = firstFrames.get(regionName);
+
+        if (shared == null) {
+
+            shared = new SharedAnimation();
+            shared.firstFrame = new TextureRegion(findRegion(regionName), 0, 0, frameWidth, frameHeight);
+            shared.frameCount = 1;
+            firstFrames.put(regionName, shared);
+        }
+
+        shared.userCount++;
+
+        return shared.firstFrame;
+    }
+
+    private TextureRegion findRegion(String regionName) {
+
+        var region = atlas.findRegion(regionName);
+
+        if (region == null)
+            throw new GdxRuntimeException("The atlas has no region " + regionName);
+
+        return region;
+    }
+
+    public float getFrameDuration() {
+        return 0.1f;
+    }
+
+    public synchronized void retain(Texture texture) {
+        textureReferences.getAndIncrement(texture, 0, 1);
+    }
+
+    public synchronized void release(Texture texture) {
+
+        //already disposed, or never counted
+        if (!textureReferences.containsKey(texture))
+            return;
+
+        int references = textureReferences.getAndIncrement(texture, 0, -1) - 1;
+
+        if (references > 0)
+            return;
+
+        textureReferences.remove(texture, 0);
+        texture.dispose();
+    }
+
+    public synchronized int getReferenceCount(Texture texture) {
+        return textureReferences.get(texture, 0);
+    }
+
+    /** The regions animated or shown by the objects, for {@link #getUserCount} and {@link #getSavedBytes}. */
+    public Array<String> getRegionNames() {
+
+        var names = new Array<String>();
+
+        for (var name : animations.keys())
+            names.add(name);
+
+        for (var name : firstFrames.keys()) {
+
+            if (!animations.containsKey(name))
+                names.add(name);
+        }
+
+        return names;
+    }
+
+    /** How many times the animation and the first frame of the region were handed out, one per object using it. */
+    public int getUserCount(String regionName) {
+
+        var animation = animations.get(regionName);
+        var firstFrame = firstFrames.get(regionName);
+
+        return Math.max(animation != null ? animation.userCount : 0, firstFrame != null ? firstFrame.userCount : 0);
+    }
+
+    /** About how much memory sharing the region saved, compared to every object building its own frames. */
+    public long getSavedBytes(String regionName) {
+
+        long savedBytes = 0;
+        var animation = animations.get(regionName);
+        var firstFrame = firstFrames.get(regionName);
+
+        if (animation != null)
+            savedBytes += (animation.userCount - 1L) * (ANIMATION_BYTES + animation.frameCount * REGION_BYTES);
+
+        if (firstFrame != null)
+            savedBytes += (firstFrame.userCount - 1L) * REGION_BYTES;
+
+        return savedBytes;
+    }
+
+    /** Releases the references of the registry, the textures still drawn by some object stay until it is disposed. */
+    @Override
+    public void dispose() {
+
+        if (isDisposed)
+            return;
+
+        isDisposed = true;
+
+        for (var texture : atlas.getTextures())
+            release(texture);
+    }
+}
@@ -0,0 +1,152 @@
+package knight.nameless.input;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes the input of another source through and writes it to a file that {@link InputReplay} plays back. Steps with
+ * the same buttons are written as a single run, so holding a key for a minute takes five bytes. The render thread
+ * only puts the finished runs in a ring, a thread of its own writes them out.
+ */
+public class InputRecorder implements InputSource {
+
+    private static final int RING_SIZE = 1024;
+    private final InputSource source;
+    private final FileHandle file;
+    private final OutputStream output;
+    //buttons in the high half and the number of steps in the low half of every finished run
+    private final long[] ring = new long[RING_SIZE];
+    private volatile long publishedCount;
+    private volatile long writtenCount;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(RING_SIZE * InputReplay.RUN_BYTES);
+    private final Thread thread;
+    private volatile boolean isRunning = true;
+    private int runButtons;
+    private int runLength;
+    private long recordedFrameCount;
+
+    public InputRecorder(InputSource source, FileHandle file) {
+
+        this.source = source;
+        this.file = file;
+
+        output = file.write(false);
+
+        var header = ByteBuffer.allocate(InputReplay.HEADER_BYTES);
+        header.putInt(InputReplay.MAGIC).putInt(InputReplay.VERSION).flip();
+        write(header);
+
+        thread = new Thread(this::run, "input-recorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public int poll() {
+
+        int buttons = source.poll();
+
+        if (buttons != runButtons && runLength > 0) {
+
+            publish(runButtons, runLength);
+            runLength = 0;
+        }
+
+        runButtons = buttons;
+        runLength++;
+        recordedFrameCount++;
+
+        return buttons;
+    }
+
+    private void publish(int buttons, int length) {
+
+        //the writer is a full ring behind, which only happens if the disk stalls, so waiting here is rare
+        while (publishedCount - writtenCount == RING_SIZE && thread.isAlive()) {
+
+            LockSupport.unpark(thread);
+            Thread.yield();
+        }
+
+        ring[(int) (publishedCount % RING_SIZE)] = (long) buttons << 32 | length;
+        publishedCount++;
+
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+
+        while (isRunning || writtenCount < publishedCount) {
+
+            long available = publishedCount;
+
+            if (writtenCount == available) {
+
+                LockSupport.park(this);
+                continue;
+            }
+
+            writeBuffer.clear();
+
+            for (long i = writtenCount; i < available; i++) {
+
+                long run = ring[(int) (i % RING_SIZE)];
+                writeBuffer.put((byte) (run >>> 32)).putInt((int) run);
+            }
+
+            writeBuffer.flip();
+            write(writeBuffer);
+
+            writtenCount = available;
+        }
+    }
+
+    private void write(ByteBuffer buffer) {
+
+        try {
+            output.write(buffer.array(), buffer.position(), buffer.remaining());
+            output.flush();
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Could not write the input recording " + file, exception);
+        }
+    }
+
+    public long getRecordedFrameCount() {
+        return recordedFrameCount;
+    }
+
+    /** Writes the runs still pending, the one in progress included, and closes the file and the source. */
+    @Override
+    public void dispose() {
+
+        if (runLength > 0) {
+
+            publish(runButtons, runLength);
+            runLength = 0;
+        }
+
+        isRunning = false;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        StreamUtils.closeQuietly(output);
+        source.dispose();
+
+        if (writtenCount < publishedCount)
+            Gdx.app.error("InputRecorder", "The input recording " + file + " is incomplete");
+    }
+}
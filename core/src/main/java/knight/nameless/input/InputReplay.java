@@ -0,0 +1,114 @@
+package knight.nameless.input;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Plays back the input written by an {@link InputRecorder}, one step per poll. After the last recorded step nothing
+ * is pressed. Fed to a world loaded from the same level, it steps through exactly the same states on every run.
+ * <p>
+ * Layout, big-endian: the magic number and the version, then runs of steps with the same buttons as a buttons
+ * byte followed by the number of steps as an int.
+ */
+public class InputReplay implements InputSource {
+
+    //"INP1"
+    public static final int MAGIC = 0x494E5031;
+    public static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RUN_BYTES = 5;
+    //buttons and length of every run
+    private final IntArray runs;
+    private final int frameCount;
+    private int runIndex;
+    private int runStepsLeft;
+
+    public InputReplay(IntArray runs) {
+
+        this.runs = runs;
+
+        int frames = 0;
+
+        for (int i = 1; i < runs.size; i += 2)
+            frames += runs.get(i);
+
+        frameCount = frames;
+        rewind();
+    }
+
+    public static InputReplay read(FileHandle file) {
+
+        var buffer = ByteBuffer.wrap(file.readBytes());
+
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC)
+            throw new GdxRuntimeException("Not an input recording: " + file);
+
+        int version = buffer.getInt();
+
+        if (version != VERSION)
+            throw new GdxRuntimeException("Input recording version " + version + " is not supported");
+
+        var runs = new IntArray(buffer.remaining() / RUN_BYTES * 2);
+
+        while (buffer.remaining() >= RUN_BYTES)
+            runs.add(buffer.get() & 0xFF, buffer.getInt());
+
+        return new InputReplay(runs);
+    }
+
+    /** Another replay of the same recording with a position of its own, the recorded runs are shared. */
+    public InputReplay copy() {
+        return new InputReplay(runs);
+    }
+
+    /** Starts again from the first recorded step. */
+    public void rewind() {
+
+        runIndex = 0;
+        runStepsLeft = runs.size > 0 ? runs.get(1) : 0;
+    }
+
+    @Override
+    public int poll() {
+
+        while (runStepsLeft == 0) {
+
+            if (runIndex + 2 >= runs.size)
+                return 0;
+
+            runIndex += 2;
+            runStepsLeft = runs.get(runIndex + 1);
+        }
+
+        runStepsLeft--;
+
+        return runs.get(runIndex);
+    }
+
+    /** Whether the button is held on any recorded step. */
+    public boolean hasButton(int button) {
+
+        for (int i = 0; i < runs.size; i += 2) {
+
+            if ((runs.get(i) & button) != 0 && runs.get(i + 1) > 0)
+                return true;
+        }
+
+        return false;
+    }
+
+    public boolean isFinished() {
+        return runStepsLeft == 0 && runIndex + 2 >= runs.size;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
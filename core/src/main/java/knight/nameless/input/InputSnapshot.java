@@ -0,0 +1,30 @@
+package knight.nameless.input;
+
+/**
+ * The buttons held during one step of the simulation. It is taken once at the start of the step, so everything
+ * the step does sees the same input, whether it comes from the keyboard or from a recording.
+ */
+public class InputSnapshot {
+
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int JUMP = 1 << 2;
+    //not read by the player, the game steps back through the rewind buffer or switches level instead, they are
+    //recorded with the other buttons so a replay does the same on the same steps
+    public static final int REWIND = 1 << 3;
+    public static final int NEXT_LEVEL = 1 << 4;
+
+    private int buttons;
+
+    public void set(int buttons) {
+        this.buttons = buttons;
+    }
+
+    public int getButtons() {
+        return buttons;
+    }
+
+    public boolean isPressed(int button) {
+        return (buttons & button) != 0;
+    }
+}
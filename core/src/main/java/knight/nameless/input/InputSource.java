@@ -0,0 +1,23 @@
+package knight.nameless.input;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/** Gives the buttons of every simulation step, as a mask of the {@link InputSnapshot} buttons. */
+public interface InputSource extends Disposable {
+
+    //nothing is ever pressed, for simulations nobody plays
+    InputSource NONE = new InputSource() {
+
+        @Override
+        public int poll() {
+            return 0;
+        }
+
+        @Override
+        public void dispose() {
+        }
+    };
+
+    /** Called once per step, in step order. */
+    int poll();
+}
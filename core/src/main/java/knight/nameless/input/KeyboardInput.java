@@ -0,0 +1,35 @@
+package knight.nameless.input;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+
+/** The controls of the game, read from the keyboard. */
+public class KeyboardInput implements InputSource {
+
+    @Override
+    public int poll() {
+
+        int buttons = 0;
+
+        if (Gdx.input.isKeyPressed(Input.Keys.A))
+            buttons |= InputSnapshot.LEFT;
+
+        if (Gdx.input.isKeyPressed(Input.Keys.D))
+            buttons |= InputSnapshot.RIGHT;
+
+        if (Gdx.input.isKeyPressed(Input.Keys.SPACE))
+            buttons |= InputSnapshot.JUMP;
+
+        if (Gdx.input.isKeyPressed(Input.Keys.R))
+            buttons |= InputSnapshot.REWIND;
+
+        if (Gdx.input.isKeyPressed(Input.Keys.N))
+            buttons |= InputSnapshot.NEXT_LEVEL;
+
+        return buttons;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
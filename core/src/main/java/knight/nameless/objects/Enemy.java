@@ -2,26 +2,33 @@ package knight.nameless.objects;
 
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Pool;
 
-public class Enemy extends GameObject {
+import knight.nameless.assets.SpriteRegistry;
+
+import java.nio.ByteBuffer;
+
+public class Enemy extends GameObject implements Pool.Poolable {
 
     private final Animation<TextureRegion> runningAnimation;
+    //changes every time the enemy is spawned, to tell a recycled enemy from the one that was spawned before
+    public int spawnId;
     private float stateTimer;
     public boolean isMovingRight;
     private boolean setToDestroy;
     private boolean isDestroyed;
 
-    public Enemy(Rectangle bounds, TextureAtlas atlas) {
+    public Enemy(Rectangle bounds, SpriteRegistry sprites) {
         super(
             bounds,
-            new TextureRegion(atlas.findRegion("Run-Enemy"), 0, 0, 32, 32)
+            sprites.getFirstFrame("Run-Enemy", 32, 32),
+            sprites
         );
 
         isMovingRight = true;
-        runningAnimation = makeAnimationByTotalFrames(atlas.findRegion("Run-Enemy"), 10);
+        runningAnimation = sprites.getAnimation("Run-Enemy", 11, 32, 32);
     }
 
     private void destroyEnemy() {
@@ -42,28 +49,80 @@ public class Enemy extends GameObject {
 
             actualRegion = runningAnimation.getKeyFrame(stateTimer, true);
 
-            velocity.y -= 20.8f * deltaTime;
+            driveSpeed = isMovingRight ? speed : -speed;
+        }
+    }
+
+    @Override
+    public boolean shouldIntegrate() {
+        return !isDestroyed;
+    }
+
+    @Override
+    public boolean canDespawn() {
+        return isDestroyed && stateTimer >= 1;
+    }
 
-            bounds.y += velocity.y;
-            bounds.x += velocity.x;
+    @Override
+    protected void afterIntegration() {
 
-            velocity.x *= 0.9f;
+        if (bounds.y < -50)
+            setToDestroy = true;
+    }
 
-            if (isMovingRight && velocity.x <= 4)
-                bounds.x += speed * deltaTime;
+    @Override
+    public boolean hasContacts() {
+        return !setToDestroy && !isDestroyed;
+    }
 
-            else if (!isMovingRight && velocity.x >= -4)
-                bounds.x -= speed * deltaTime;
+    /** Destroyed by the player falling on it, it is gone from the next step on. */
+    public void stomp() {
+        setToDestroy = true;
+    }
 
-            if (bounds.y < -50)
-                setToDestroy = true;
-        }
+    @Override
+    public boolean isVisible() {
+        return !isDestroyed || stateTimer < 1;
     }
 
     @Override
-    public void draw(Batch batch) {
-        if (!isDestroyed || stateTimer < 1)
-            super.draw(batch);
+    public void draw(Batch batch, float alpha) {
+        if (isVisible())
+            super.draw(batch, alpha);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+
+        super.writeState(buffer);
+
+        buffer.putFloat(stateTimer);
+        buffer.put((byte) (isMovingRight ? 1 : 0)).put((byte) (setToDestroy ? 1 : 0)).put((byte) (isDestroyed ? 1 : 0));
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+
+        super.readState(buffer);
+
+        stateTimer = buffer.getFloat();
+        isMovingRight = buffer.get() != 0;
+        setToDestroy = buffer.get() != 0;
+        isDestroyed = buffer.get() != 0;
+
+        actualRegion = runningAnimation.getKeyFrame(stateTimer, true);
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        stateTimer = 0;
+        isMovingRight = true;
+        setToDestroy = false;
+        isDestroyed = false;
+        actualRegion = runningAnimation.getKeyFrame(0);
     }
 
     public void changeDirection(){
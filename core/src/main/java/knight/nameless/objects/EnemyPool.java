@@ -0,0 +1,72 @@
+package knight.nameless.objects;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Pool;
+
+import knight.nameless.assets.SpriteRegistry;
+
+/**
+ * Recycles the enemies of a world, with their animation frames, so spawning waves of them does not allocate once
+ * the pool has grown to the most enemies that were alive at the same time.
+ */
+public class EnemyPool extends Pool<Enemy> {
+
+    private final SpriteRegistry sprites;
+    private int liveCount;
+    private int peakLiveCount;
+    private int createdCount;
+
+    public EnemyPool(SpriteRegistry sprites) {
+
+        this.sprites = sprites;
+    }
+
+    @Override
+    protected Enemy newObject() {
+
+        createdCount++;
+
+        return new Enemy(new Rectangle(), sprites);
+    }
+
+    //the enemies dropped by clear or a full pool let go of their texture
+    @Override
+    protected void discard(Enemy enemy) {
+        enemy.dispose();
+    }
+
+    @Override
+    public Enemy obtain() {
+
+        liveCount++;
+        peakLiveCount = Math.max(peakLiveCount, liveCount);
+
+        return super.obtain();
+    }
+
+    @Override
+    public void free(Enemy enemy) {
+
+        liveCount--;
+        super.free(enemy);
+    }
+
+    /** Enemies obtained and not freed yet. */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public int getFreeCount() {
+        return getFree();
+    }
+
+    /** The most enemies that were alive at the same time. */
+    public int getPeakLiveCount() {
+        return peakLiveCount;
+    }
+
+    /** How many enemies were ever made, it stops growing once the pool covers the peak. */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+}
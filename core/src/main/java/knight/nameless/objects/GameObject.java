@@ -1,69 +1,233 @@
 package knight.nameless.objects;
 
-import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
+
+import knight.nameless.assets.SpriteRegistry;
+
+import java.nio.ByteBuffer;
 
 public abstract class GameObject {
 
+    public static final float GRAVITY = 20.8f;
+    public static final float FRICTION = 0.9f;
+    //above this horizontal speed an object is already moving fast enough and its drive speed is not added
+    public static final float MAX_DRIVE_VELOCITY = 4;
     public final Rectangle bounds;
     protected TextureRegion actualRegion;
     public final Vector2 velocity = new Vector2(0, 0);
-    private final int regionWidth;
-    private final int regionHeight;
+    private final Rectangle previousPosition = new Rectangle();
+    private float lastStepX;
+    private float lastStepY;
+    //the texture of the regions, released instead of disposed since the other objects still draw it
+    private final SpriteRegistry sprites;
+    private final Texture texture;
     public final int speed = 50;
-
-    protected GameObject(Rectangle bounds, TextureRegion region) {
+    //set by the children every step: the horizontal acceleration, and the speed an object walks at on its own
+    protected float accelerationX;
+    protected float driveSpeed;
+    //set by the world before every step from where the object is relative to the camera
+    public ActivityState activityState = ActivityState.ACTIVE;
+    public boolean isAwake = true;
+    //counted by the world while the object is throttled, the next update runs them all so no simulated time is lost
+    public int skippedSteps;
+    //set by the world when the object is despawned, it is removed from the world at the end of the step
+    public boolean isDespawned;
+
+    public enum ActivityState {ACTIVE, THROTTLED, SLEEPING}
+    //values() makes a new array on every call
+    private static final ActivityState[] ACTIVITY_STATES = ActivityState.values();
+    /** The most bytes {@link #writeState(ByteBuffer)} writes, for any kind of object. */
+    public static final int MAX_STATE_BYTES = 64;
+
+    protected GameObject(Rectangle bounds, TextureRegion region, SpriteRegistry sprites) {
 
         this.bounds = bounds;
+        this.sprites = sprites;
         actualRegion = region;
-        regionWidth = region.getRegionWidth();
-        regionHeight = region.getRegionHeight();
+        texture = region.getTexture();
+        sprites.retain(texture);
+        resetInterpolation();
     }
 
+    /** Runs the behaviour of the object before it moves: animations, timers and the acceleration for this step. */
     protected abstract void childUpdate(float deltaTime);
 
+    /** Runs after the object moved, only on the steps it was integrated. */
+    protected void afterIntegration() {
+    }
+
+    /** Objects that are not integrated keep their position, for example a destroyed enemy. */
+    public boolean shouldIntegrate() {
+        return true;
+    }
+
+    /** Objects with nothing left to simulate or draw are despawned, for example a destroyed enemy that is gone. */
+    public boolean canDespawn() {
+        return false;
+    }
+
+    /** Objects that can't touch other objects are left out of the contacts, for example a destroyed enemy. */
+    public boolean hasContacts() {
+        return true;
+    }
+
+    /** Objects with nothing to draw are left out of the visible set, for example a destroyed enemy that is gone. */
+    public boolean isVisible() {
+        return true;
+    }
+
+    /**
+     * Advances the object by this step and the ones it skipped: the behaviour sees the time of all of them at once,
+     * the movement is integrated once per step, and the world collides the whole movement after it in one sweep.
+     */
     public void update(float deltaTime) {
 
-        childUpdate(deltaTime);
+        beginStep(deltaTime);
+
+        if (shouldIntegrate()) {
+
+            for (int step = getStepCount(); step > 0; step--)
+                integrate(deltaTime);
+        }
+
+        endStep();
+    }
+
+    /** How many steps the next update advances the object, more than one after it was throttled. */
+    public int getStepCount() {
+        return 1 + skippedSteps;
     }
 
-    public void draw(Batch batch) {
+    private void beginStep(float deltaTime) {
 
-        batch.draw(actualRegion, bounds.x, bounds.y, bounds.width, bounds.height);
+        lastStepX = bounds.x;
+        lastStepY = bounds.y;
+
+        childUpdate(deltaTime * getStepCount());
     }
 
-    public void draw(ShapeRenderer shapeRenderer) {
+    private void endStep() {
 
-        shapeRenderer.rect(bounds.x, bounds.y, bounds.width, bounds.height);
+        if (shouldIntegrate())
+            afterIntegration();
+
+        skippedSteps = 0;
     }
 
-    protected Animation<TextureRegion> makeAnimationByTotalFrames(TextureRegion characterRegion, int totalFrames) {
+    private void integrate(float deltaTime) {
 
-        Array<TextureRegion> animationFrames = new Array<>();
+        velocity.y -= GRAVITY * deltaTime;
 
-        for (int i = 0; i <= totalFrames; i++) {
+        bounds.y += velocity.y;
+        bounds.x += velocity.x;
 
-            var actualFrame = new TextureRegion(characterRegion, i * regionWidth, 0, regionWidth, regionHeight);
-            animationFrames.add(actualFrame);
-        }
+        velocity.x += accelerationX * deltaTime;
+        velocity.x *= FRICTION;
 
-        return new Animation<>(0.1f, animationFrames);
+        if (driveSpeed > 0 && velocity.x <= MAX_DRIVE_VELOCITY)
+            bounds.x += driveSpeed * deltaTime;
+
+        else if (driveSpeed < 0 && velocity.x >= -MAX_DRIVE_VELOCITY)
+            bounds.x += driveSpeed * deltaTime;
     }
 
+    /** Called instead of {@link #update(float)} on the steps the object is not awake, so it is drawn holding still. */
+    public void skipStep() {
+        resetInterpolation();
+    }
+
+    /** Moves the object to a new place, without interpolating from where it was. */
+    public void spawnAt(float x, float y, float width, float height) {
+
+        bounds.set(x, y, width, height);
+        resetInterpolation();
+    }
+
+    /** Clears the movement and the activity, so the object can be spawned again as a new one. */
+    public void reset() {
+
+        velocity.set(0, 0);
+        accelerationX = 0;
+        driveSpeed = 0;
+        activityState = ActivityState.ACTIVE;
+        isAwake = true;
+        skippedSteps = 0;
+        isDespawned = false;
+    }
+
+    /** Makes the next interpolated positions start from the current bounds, used after a teleport. */
+    protected void resetInterpolation() {
+
+        lastStepX = bounds.x;
+        lastStepY = bounds.y;
+    }
+
+    /** Where the object was when the step began, the movement of the step goes from here to the bounds. */
+    public float getStepStartX() {
+        return lastStepX;
+    }
+
+    public float getStepStartY() {
+        return lastStepY;
+    }
+
+    public float getInterpolatedX(float alpha) {
+        return lastStepX + (bounds.x - lastStepX) * alpha;
+    }
+
+    public float getInterpolatedY(float alpha) {
+        return lastStepY + (bounds.y - lastStepY) * alpha;
+    }
+
+    public void draw(Batch batch, float alpha) {
+
+        batch.draw(actualRegion, getInterpolatedX(alpha), getInterpolatedY(alpha), bounds.width, bounds.height);
+    }
+
+    public void draw(ShapeRenderer shapeRenderer) {
+
+        shapeRenderer.rect(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    /** The returned rectangle is reused between calls, copy it if it needs to be kept. */
     public Rectangle getPreviousPosition() {
 
         float positionX = bounds.x - velocity.x;
         float positionY = bounds.y - velocity.y;
 
-        return new Rectangle(positionX, positionY, bounds.width, bounds.height);
+        return previousPosition.set(positionX, positionY, bounds.width, bounds.height);
+    }
+
+    /** Writes everything the simulation needs to go on from this step, the children add their own state after it. */
+    public void writeState(ByteBuffer buffer) {
+
+        buffer.putFloat(bounds.x).putFloat(bounds.y).putFloat(bounds.width).putFloat(bounds.height);
+        buffer.putFloat(velocity.x).putFloat(velocity.y);
+        buffer.putFloat(lastStepX).putFloat(lastStepY);
+        buffer.putFloat(accelerationX).putFloat(driveSpeed);
+        buffer.put((byte) activityState.ordinal()).put((byte) (isAwake ? 1 : 0)).put((byte) skippedSteps);
+    }
+
+    /** Reads back what {@link #writeState(ByteBuffer)} wrote, the object then continues exactly from that step. */
+    public void readState(ByteBuffer buffer) {
+
+        bounds.set(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        velocity.set(buffer.getFloat(), buffer.getFloat());
+        lastStepX = buffer.getFloat();
+        lastStepY = buffer.getFloat();
+        accelerationX = buffer.getFloat();
+        driveSpeed = buffer.getFloat();
+        activityState = ACTIVITY_STATES[buffer.get()];
+        isAwake = buffer.get() != 0;
+        skippedSteps = buffer.get();
     }
 
     public void dispose() {
-        actualRegion.getTexture().dispose();
+        sprites.release(texture);
     }
 }
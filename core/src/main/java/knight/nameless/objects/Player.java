@@ -1,15 +1,25 @@
 package knight.nameless.objects;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.input.InputSnapshot;
+
+import java.nio.ByteBuffer;
+
 public class Player extends GameObject {
 
+    //where the world places the player, and where the player comes back after falling off the map
+    public static final float SPAWN_X = 450;
+    public static final float SPAWN_Y = 50;
+    public static final float RESPAWN_X = 500;
+    public static final float RESPAWN_TOP = 400;
+    public static final float SIZE = 32;
     private enum AnimationState {FALLING, JUMPING, STANDING, RUNNING}
+    private static final AnimationState[] ANIMATION_STATES = AnimationState.values();
     private AnimationState actualState;
     private AnimationState previousState;
     private final TextureRegion jumpingRegion;
@@ -17,21 +27,24 @@ public class Player extends GameObject {
     private final Animation<TextureRegion> runningAnimation;
     private float animationTimer;
     private boolean isMovingRight;
+    //set by the world at the start of every step
+    public final InputSnapshot input = new InputSnapshot();
 
-    public Player(Rectangle bounds, TextureAtlas atlas) {
+    public Player(Rectangle bounds, SpriteRegistry sprites) {
         super(
             bounds,
-            new TextureRegion(atlas.findRegion("Idle"), 0, 0, 32, 32)
+            sprites.getFirstFrame("Idle", 32, 32),
+            sprites
         );
 
         previousState = AnimationState.STANDING;
         actualState = AnimationState.STANDING;
 
-        standingAnimation = makeAnimationByTotalFrames(atlas.findRegion("Idle"), 5);
+        standingAnimation = sprites.getAnimation("Idle", 6, 32, 32);
 
-        jumpingRegion = new TextureRegion(atlas.findRegion("Jump"), 0, 0, 32, 32);
+        jumpingRegion = sprites.getFirstFrame("Jump", 32, 32);
 
-        runningAnimation = makeAnimationByTotalFrames(atlas.findRegion("Run"), 5);
+        runningAnimation = sprites.getAnimation("Run", 6, 32, 32);
     }
 
     @Override
@@ -39,30 +52,31 @@ public class Player extends GameObject {
 
         actualRegion = getAnimationRegion(deltaTime);
 
-        velocity.y -= 20.8f * deltaTime;
+        if (input.isPressed(InputSnapshot.RIGHT))
+            accelerationX = speed;
 
-        bounds.y += velocity.y;
-        bounds.x += velocity.x;
+        else if (input.isPressed(InputSnapshot.LEFT))
+            accelerationX = -speed;
 
-        if (Gdx.input.isKeyPressed(Input.Keys.D))
-            velocity.x += speed * deltaTime;
-
-        else if (Gdx.input.isKeyPressed(Input.Keys.A))
-            velocity.x -= speed * deltaTime;
+        else
+            accelerationX = 0;
+    }
 
-        velocity.x *= 0.9f;
+    @Override
+    protected void afterIntegration() {
 
         if (bounds.y < 0) {
 
-            bounds.y = 400 - bounds.height;
-            bounds.x = 500;
+            bounds.y = RESPAWN_TOP - bounds.height;
+            bounds.x = RESPAWN_X;
             velocity.y = 0;
+            resetInterpolation();
         }
     }
 
     private AnimationState getPlayerCurrentState() {
 
-        boolean isPlayerMoving = Gdx.input.isKeyPressed(Input.Keys.A) || Gdx.input.isKeyPressed(Input.Keys.D);
+        boolean isPlayerMoving = input.isPressed(InputSnapshot.LEFT) || input.isPressed(InputSnapshot.RIGHT);
 
         if (velocity.y > 0 || (velocity.y < 0 && previousState == AnimationState.JUMPING))
             return AnimationState.JUMPING;
@@ -81,42 +95,76 @@ public class Player extends GameObject {
 
         actualState = getPlayerCurrentState();
 
-        TextureRegion region;
+        TextureRegion region = getStateRegion();
+
+        updateFacing();
+
+        animationTimer = actualState == previousState ? animationTimer + deltaTime : 0;
+        previousState = actualState;
+
+        return region;
+    }
+
+    private TextureRegion getStateRegion() {
 
         switch (actualState) {
 
             case JUMPING:
-                region = jumpingRegion;
-                break;
+                return jumpingRegion;
 
             case RUNNING:
-                region = runningAnimation.getKeyFrame(animationTimer, true);
-                break;
+                return runningAnimation.getKeyFrame(animationTimer, true);
 
             case FALLING:
             case STANDING:
             default:
-                region = standingAnimation.getKeyFrame(animationTimer, true);
+                return standingAnimation.getKeyFrame(animationTimer, true);
         }
+    }
 
-        flipPlayerOnXAxis(region);
+    @Override
+    public void writeState(ByteBuffer buffer) {
 
-        animationTimer = actualState == previousState ? animationTimer + deltaTime : 0;
-        previousState = actualState;
+        super.writeState(buffer);
 
-        return region;
+        buffer.put((byte) actualState.ordinal()).put((byte) previousState.ordinal());
+        buffer.putFloat(animationTimer);
+        buffer.put((byte) (isMovingRight ? 1 : 0));
     }
 
-    private void flipPlayerOnXAxis(TextureRegion region) {
+    @Override
+    public void readState(ByteBuffer buffer) {
+
+        super.readState(buffer);
+
+        actualState = ANIMATION_STATES[buffer.get()];
+        previousState = ANIMATION_STATES[buffer.get()];
+        animationTimer = buffer.getFloat();
+        isMovingRight = buffer.get() != 0;
+
+        actualRegion = getStateRegion();
+    }
 
-        if ((velocity.x < 0 || !isMovingRight) && !region.isFlipX()) {
+    //keeps facing the last direction it moved in while it stands still
+    private void updateFacing() {
 
-            region.flip(true, false);
+        if (velocity.x < 0)
             isMovingRight = false;
-        } else if ((velocity.x > 0 || isMovingRight) && region.isFlipX()) {
 
-            region.flip(true, false);
+        else if (velocity.x > 0)
             isMovingRight = true;
-        }
+    }
+
+    @Override
+    public void draw(Batch batch, float alpha) {
+
+        float positionX = getInterpolatedX(alpha);
+        float positionY = getInterpolatedY(alpha);
+
+        //the regions are shared with the registry, so facing left is drawn mirrored instead of flipping them
+        if (isMovingRight)
+            batch.draw(actualRegion, positionX, positionY, bounds.width, bounds.height);
+        else
+            batch.draw(actualRegion, positionX + bounds.width, positionY, -bounds.width, bounds.height);
     }
 }
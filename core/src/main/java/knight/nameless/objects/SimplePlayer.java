@@ -10,6 +10,7 @@ public class SimplePlayer {
 
     public final Rectangle bounds;
     public final Vector2 velocity = new Vector2(0, 0);
+    private final Rectangle previousPosition = new Rectangle();
     public final int speed = 50;
 
     public SimplePlayer(Rectangle bounds) {
@@ -55,6 +56,6 @@ public class SimplePlayer {
         float positionX = bounds.x - velocity.x;
         float positionY = bounds.y - velocity.y;
 
-        return new Rectangle(positionX, positionY, bounds.width, bounds.height);
+        return previousPosition.set(positionX, positionY, bounds.width, bounds.height);
     }
 }
@@ -0,0 +1,301 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Static bounding volume hierarchy over a set of rectangles. It is built once and then answers
+ * overlap queries and ray casts without allocating. Queries share an internal stack, so a tree
+ * must only be queried from one thread at a time.
+ */
+public class AabbTree {
+
+    private float[] minX = new float[0];
+    private float[] minY = new float[0];
+    private float[] maxX = new float[0];
+    private float[] maxY = new float[0];
+    //for inner nodes the index of the left child, the right child is always the next one after the left subtree
+    private int[] leftChild = new int[0];
+    private int[] rightChild = new int[0];
+    //for leaves the index of the structure, -1 for inner nodes
+    private int[] structureIndex = new int[0];
+    private int nodeCount;
+    private int[] stack = new int[0];
+
+    private int[] sortedStructures;
+    private float[] centers;
+
+    public void build(Array<Rectangle> structures) {
+
+        int total = structures.size;
+        int capacity = Math.max(1, total * 2 - 1);
+
+        minX = new float[capacity];
+        minY = new float[capacity];
+        maxX = new float[capacity];
+        maxY = new float[capacity];
+        leftChild = new int[capacity];
+        rightChild = new int[capacity];
+        structureIndex = new int[capacity];
+        nodeCount = 0;
+
+        if (total == 0) {
+
+            stack = new int[0];
+            return;
+        }
+
+        sortedStructures = new int[total];
+        centers = new float[total * 2];
+
+        for (int i = 0; i < total; i++) {
+
+            var structure = structures.get(i);
+
+            sortedStructures[i] = i;
+            centers[i * 2] = structure.x + structure.width / 2;
+            centers[i * 2 + 1] = structure.y + structure.height / 2;
+        }
+
+        int depth = buildNode(structures, 0, total);
+
+        stack = new int[depth + 2];
+        sortedStructures = null;
+        centers = null;
+    }
+
+    public int size() {
+        return nodeCount;
+    }
+
+    private int buildNode(Array<Rectangle> structures, int start, int end) {
+
+        int node = nodeCount++;
+
+        minX[node] = Float.MAX_VALUE;
+        minY[node] = Float.MAX_VALUE;
+        maxX[node] = -Float.MAX_VALUE;
+        maxY[node] = -Float.MAX_VALUE;
+
+        for (int i = start; i < end; i++) {
+
+            var structure = structures.get(sortedStructures[i]);
+
+            minX[node] = Math.min(minX[node], structure.x);
+            minY[node] = Math.min(minY[node], structure.y);
+            maxX[node] = Math.max(maxX[node], structure.x + structure.width);
+            maxY[node] = Math.max(maxY[node], structure.y + structure.height);
+        }
+
+        if (end - start == 1) {
+
+            leftChild[node] = -1;
+            rightChild[node] = -1;
+            structureIndex[node] = sortedStructures[start];
+            return 1;
+        }
+
+        structureIndex[node] = -1;
+
+        //split at the median of the longest axis, this keeps the tree balanced
+        int axis = maxX[node] - minX[node] >= maxY[node] - minY[node] ? 0 : 1;
+        int middle = (start + end) >>> 1;
+
+        selectMedian(start, end - 1, middle, axis);
+
+        leftChild[node] = nodeCount;
+        int leftDepth = buildNode(structures, start, middle);
+
+        rightChild[node] = nodeCount;
+        int rightDepth = buildNode(structures, middle, end);
+
+        return Math.max(leftDepth, rightDepth) + 1;
+    }
+
+    private void selectMedian(int left, int right, int target, int axis) {
+
+        while (left < right) {
+
+            float pivot = centers[sortedStructures[(left + right) >>> 1] * 2 + axis];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+
+                while (centers[sortedStructures[i] * 2 + axis] < pivot)
+                    i++;
+
+                while (centers[sortedStructures[j] * 2 + axis] > pivot)
+                    j--;
+
+                if (i <= j) {
+
+                    int swap = sortedStructures[i];
+                    sortedStructures[i] = sortedStructures[j];
+                    sortedStructures[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (target <= j)
+                right = j;
+            else if (target >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    /** Fills result with the indices of the structures overlapping the area, sorted in ascending order. */
+    public void query(Rectangle area, IntArray result) {
+
+        result.clear();
+
+        if (nodeCount == 0)
+            return;
+
+        float areaMaxX = area.x + area.width;
+        float areaMaxY = area.y + area.height;
+
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+
+        while (stackSize > 0) {
+
+            int node = stack[--stackSize];
+
+            if (area.x >= maxX[node] || areaMaxX <= minX[node] || area.y >= maxY[node] || areaMaxY <= minY[node])
+                continue;
+
+            if (structureIndex[node] != -1)
+                result.add(structureIndex[node]);
+            else {
+
+                stack[stackSize++] = rightChild[node];
+                stack[stackSize++] = leftChild[node];
+            }
+        }
+
+        result.sort();
+    }
+
+    /** Casts a segment from start to end and stores the closest structure hit, returns false if nothing was hit. */
+    public boolean segmentCast(float startX, float startY, float endX, float endY, RaycastHit hit) {
+
+        float deltaX = endX - startX;
+        float deltaY = endY - startY;
+        float length = (float) Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+        if (length == 0) {
+
+            hit.reset();
+            return false;
+        }
+
+        return raycast(startX, startY, deltaX / length, deltaY / length, length, hit);
+    }
+
+    /**
+     * Casts a ray from the start position along a normalized direction, up to maxDistance, and stores
+     * the closest structure hit. Returns false if nothing was hit.
+     */
+    public boolean raycast(float startX, float startY, float directionX, float directionY, float maxDistance, RaycastHit hit) {
+
+        hit.reset();
+
+        if (nodeCount == 0)
+            return false;
+
+        float closestDistance = maxDistance;
+
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+
+        while (stackSize > 0) {
+
+            int node = stack[--stackSize];
+
+            float entry = intersectRay(node, startX, startY, directionX, directionY, closestDistance);
+
+            if (entry < 0)
+                continue;
+
+            if (structureIndex[node] == -1) {
+
+                stack[stackSize++] = rightChild[node];
+                stack[stackSize++] = leftChild[node];
+                continue;
+            }
+
+            if (entry <= closestDistance && (hit.structureIndex == -1 || entry < hit.distance
+                || (entry == hit.distance && structureIndex[node] < hit.structureIndex))) {
+
+                closestDistance = entry;
+
+                hit.structureIndex = structureIndex[node];
+                hit.distance = entry;
+                hit.pointX = startX + directionX * entry;
+                hit.pointY = startY + directionY * entry;
+                setHitNormal(node, hit, startX, startY, directionX, directionY);
+            }
+        }
+
+        return hit.structureIndex != -1;
+    }
+
+    //slab test, returns the entry distance or -1 when the ray misses the node before maxDistance
+    private float intersectRay(int node, float startX, float startY, float directionX, float directionY, float maxDistance) {
+
+        float entry = 0;
+        float exit = maxDistance;
+
+        if (directionX == 0) {
+
+            if (startX < minX[node] || startX > maxX[node])
+                return -1;
+        } else {
+
+            float first = (minX[node] - startX) / directionX;
+            float second = (maxX[node] - startX) / directionX;
+
+            entry = Math.max(entry, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+
+        if (directionY == 0) {
+
+            if (startY < minY[node] || startY > maxY[node])
+                return -1;
+        } else {
+
+            float first = (minY[node] - startY) / directionY;
+            float second = (maxY[node] - startY) / directionY;
+
+            entry = Math.max(entry, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+
+        return entry <= exit ? entry : -1;
+    }
+
+    private void setHitNormal(int node, RaycastHit hit, float startX, float startY, float directionX, float directionY) {
+
+        hit.normalX = 0;
+        hit.normalY = 0;
+
+        //a ray that starts inside the structure has no entry face
+        if (hit.distance == 0)
+            return;
+
+        //the entry face belongs to the axis whose slab the ray entered last
+        float entryX = directionX == 0 ? -Float.MAX_VALUE : ((directionX > 0 ? minX[node] : maxX[node]) - startX) / directionX;
+        float entryY = directionY == 0 ? -Float.MAX_VALUE : ((directionY > 0 ? minY[node] : maxY[node]) - startY) / directionY;
+
+        if (entryX >= entryY)
+            hit.normalX = directionX > 0 ? -1 : 1;
+        else
+            hit.normalY = directionY > 0 ? -1 : 1;
+    }
+}
@@ -0,0 +1,16 @@
+package knight.nameless.physics;
+
+/**
+ * Tests one rectangle against many packed ones at once, see {@link ScalarOverlapKernel}. Only measured by the
+ * benchmarks against a loop of Rectangle.overlaps: the world asks its spatial grid for the few structures near an
+ * object, too few for a kernel over all of them to pay off.
+ */
+public interface OverlapKernel {
+
+    /**
+     * Sets bit i of the mask, word i / 64, when the area overlaps rectangle i the way {@link
+     * com.badlogic.gdx.math.Rectangle#overlaps} tests it, clears the other bits, and returns how many overlap. The
+     * mask needs at least {@link PackedRectangles#getMaskLength()} words.
+     */
+    int overlaps(PackedRectangles rectangles, float x, float y, float width, float height, long[] hitMask);
+}
@@ -0,0 +1,82 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Static rectangles packed by edge in four arrays, so an {@link OverlapKernel} reads them in order instead of
+ * following a reference per rectangle. Rectangle i is the one at index i of the array it was built from.
+ */
+public class PackedRectangles {
+
+    private int size;
+    private float[] minX = new float[0];
+    private float[] minY = new float[0];
+    private float[] maxX = new float[0];
+    private float[] maxY = new float[0];
+
+    public void set(Array<Rectangle> rectangles) {
+
+        size = 0;
+
+        for (var rectangle : rectangles)
+            add(rectangle);
+    }
+
+    public void add(Rectangle rectangle) {
+
+        if (size == minX.length)
+            resize(Math.max(16, size * 2));
+
+        //the same sums Rectangle.overlaps does, so the kernels find the same overlaps to the last bit
+        minX[size] = rectangle.x;
+        minY[size] = rectangle.y;
+        maxX[size] = rectangle.x + rectangle.width;
+        maxY[size] = rectangle.y + rectangle.height;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** How many words a hit mask needs to hold a bit for every rectangle. */
+    public int getMaskLength() {
+        return (size + 63) >>> 6;
+    }
+
+    public float[] getMinX() {
+        return minX;
+    }
+
+    public float[] getMinY() {
+        return minY;
+    }
+
+    public float[] getMaxX() {
+        return maxX;
+    }
+
+    public float[] getMaxY() {
+        return maxY;
+    }
+
+    private void resize(int capacity) {
+
+        minX = copyOf(minX, capacity);
+        minY = copyOf(minY, capacity);
+        maxX = copyOf(maxX, capacity);
+        maxY = copyOf(maxY, capacity);
+    }
+
+    private float[] copyOf(float[] values, int capacity) {
+
+        var copy = new float[capacity];
+        System.arraycopy(values, 0, copy, 0, values.length);
+        return copy;
+    }
+}
@@ -0,0 +1,22 @@
+package knight.nameless.physics;
+
+/** Result of a ray or segment cast against an {@link AabbTree}. */
+public class RaycastHit {
+
+    public int structureIndex = -1;
+    public float distance;
+    public float pointX;
+    public float pointY;
+    public float normalX;
+    public float normalY;
+
+    public void reset() {
+
+        structureIndex = -1;
+        distance = 0;
+        pointX = 0;
+        pointY = 0;
+        normalX = 0;
+        normalY = 0;
+    }
+}
@@ -0,0 +1,33 @@
+package knight.nameless.physics;
+
+import java.util.Arrays;
+
+/** Tests the rectangles one at a time, on every runtime, including the ones without the vector API. */
+public class ScalarOverlapKernel implements OverlapKernel {
+
+    @Override
+    public int overlaps(PackedRectangles rectangles, float x, float y, float width, float height, long[] hitMask) {
+
+        int size = rectangles.size();
+        float[] minX = rectangles.getMinX();
+        float[] minY = rectangles.getMinY();
+        float[] maxX = rectangles.getMaxX();
+        float[] maxY = rectangles.getMaxY();
+        float right = x + width;
+        float top = y + height;
+        int hitCount = 0;
+
+        Arrays.fill(hitMask, 0, rectangles.getMaskLength(), 0);
+
+        for (int i = 0; i < size; i++) {
+
+            if (x < maxX[i] && right > minX[i] && y < maxY[i] && top > minY[i]) {
+
+                hitMask[i >>> 6] |= 1L << i;
+                hitCount++;
+            }
+        }
+
+        return hitCount;
+    }
+}
@@ -0,0 +1,102 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Turns the solid tiles of a tile layer into collision rectangles. Runs of solid tiles are grown right as far as
+ * they go and then up while the whole run stays solid, so a floor or a wall made of hundreds of tiles becomes a
+ * handful of rectangles and the collision cost depends on the shape of the level, not on its tile count. The
+ * greedy growth gives few rectangles, not always the fewest: a shape like an L can come out as one piece more.
+ */
+public final class SolidTileMerger {
+
+    /** The tile property, set in the tile set, that makes a tile part of the collision geometry. */
+    public static final String SOLID_PROPERTY = "solid";
+
+    private SolidTileMerger() {
+    }
+
+    public static boolean isSolid(TiledMapTile tile) {
+        return tile != null && tile.getProperties().get(SOLID_PROPERTY, false, Boolean.class);
+    }
+
+    /**
+     * Clears the solid cells whose center is inside the rectangle x, y, width and height, the tiles a hand drawn
+     * collision shape of the map already collides for. Returns the number of cells cleared.
+     */
+    public static int clearCovered(boolean[] solid, int columns, int rows, float originX, float originY,
+                                   float tileWidth, float tileHeight, float x, float y, float width, float height) {
+
+        //the center of cell i is at origin + (i + 0.5) * tile size
+        int startColumn = Math.max(0, (int) Math.ceil((x - originX) / tileWidth - 0.5f));
+        int endColumn = Math.min(columns, (int) Math.ceil((x + width - originX) / tileWidth - 0.5f));
+        int startRow = Math.max(0, (int) Math.ceil((y - originY) / tileHeight - 0.5f));
+        int endRow = Math.min(rows, (int) Math.ceil((y + height - originY) / tileHeight - 0.5f));
+        int clearedCount = 0;
+
+        for (int row = startRow; row < endRow; row++) {
+            for (int column = startColumn; column < endColumn; column++) {
+
+                if (solid[row * columns + column]) {
+
+                    solid[row * columns + column] = false;
+                    clearedCount++;
+                }
+            }
+        }
+
+        return clearedCount;
+    }
+
+    /**
+     * Merges the solid cells of a grid stored by rows from the bottom, and adds every rectangle to the result as
+     * x, y, width and height. The merged cells are cleared from the grid. Returns the number of rectangles added.
+     */
+    public static int merge(boolean[] solid, int columns, int rows, float originX, float originY,
+                            float tileWidth, float tileHeight, FloatArray result) {
+
+        int rectangleCount = 0;
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+
+                if (!solid[row * columns + column])
+                    continue;
+
+                int endColumn = column + 1;
+
+                while (endColumn < columns && solid[row * columns + endColumn])
+                    endColumn++;
+
+                int endRow = row + 1;
+
+                while (endRow < rows && isRunSolid(solid, columns, endRow, column, endColumn))
+                    endRow++;
+
+                for (int clearRow = row; clearRow < endRow; clearRow++) {
+                    for (int clearColumn = column; clearColumn < endColumn; clearColumn++)
+                        solid[clearRow * columns + clearColumn] = false;
+                }
+
+                result.add(originX + column * tileWidth, originY + row * tileHeight);
+                result.add((endColumn - column) * tileWidth, (endRow - row) * tileHeight);
+
+                rectangleCount++;
+            }
+        }
+
+        return rectangleCount;
+    }
+
+    private static boolean isRunSolid(boolean[] solid, int columns, int row, int startColumn, int endColumn) {
+
+        for (int column = startColumn; column < endColumn; column++) {
+
+            if (!solid[row * columns + column])
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Uniform grid that only keeps the cells that have structures, so it covers maps of any size and with negative
+ * coordinates. Structures are inserted and removed one by one, while the parts of a streamed map come and go.
+ */
+public class SparseSpatialGrid implements StructureIndex {
+
+    private final float cellSize;
+    private final LongMap<IntArray> cells = new LongMap<>();
+    //emptied cells are kept for reuse, so streaming the same area in and out does not allocate new ones
+    private final Array<IntArray> freeCells = new Array<>();
+
+    public SparseSpatialGrid(float cellSize) {
+
+        this.cellSize = cellSize;
+    }
+
+    public void insert(int index, Rectangle structure) {
+
+        int startColumn = getCell(structure.x);
+        int endColumn = getCell(structure.x + structure.width);
+        int startRow = getCell(structure.y);
+        int endRow = getCell(structure.y + structure.height);
+
+        for (int row = startRow; row <= endRow; row++) {
+            for (int column = startColumn; column <= endColumn; column++) {
+
+                long key = getKey(column, row);
+                var cell = cells.get(key);
+
+                if (cell == null) {
+
+                    cell = freeCells.isEmpty() ? new IntArray(false, 4) : freeCells.pop();
+                    cells.put(key, cell);
+                }
+
+                cell.add(index);
+            }
+        }
+    }
+
+    /** The structure must have the same bounds it had when it was inserted. */
+    public void remove(int index, Rectangle structure) {
+
+        int startColumn = getCell(structure.x);
+        int endColumn = getCell(structure.x + structure.width);
+        int startRow = getCell(structure.y);
+        int endRow = getCell(structure.y + structure.height);
+
+        for (int row = startRow; row <= endRow; row++) {
+            for (int column = startColumn; column <= endColumn; column++) {
+
+                long key = getKey(column, row);
+                var cell = cells.get(key);
+
+                if (cell == null)
+                    continue;
+
+                cell.removeValue(index);
+
+                if (cell.isEmpty()) {
+
+                    cells.remove(key);
+                    freeCells.add(cell);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+
+        for (var cell : cells.values()) {
+
+            cell.clear();
+            freeCells.add(cell);
+        }
+
+        cells.clear();
+    }
+
+    public int getCellCount() {
+        return cells.size;
+    }
+
+    @Override
+    public void query(Rectangle area, IntArray result) {
+
+        result.clear();
+
+        if (cells.size == 0)
+            return;
+
+        int startColumn = getCell(area.x);
+        int endColumn = getCell(area.x + area.width);
+        int startRow = getCell(area.y);
+        int endRow = getCell(area.y + area.height);
+
+        for (int row = startRow; row <= endRow; row++) {
+            for (int column = startColumn; column <= endColumn; column++) {
+
+                var cell = cells.get(getKey(column, row));
+
+                if (cell != null)
+                    result.addAll(cell);
+            }
+        }
+
+        SpatialGrid.removeDuplicates(result);
+    }
+
+    private int getCell(float position) {
+        return (int) Math.floor(position / cellSize);
+    }
+
+    private static long getKey(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
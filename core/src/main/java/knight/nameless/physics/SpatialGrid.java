@@ -0,0 +1,130 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/** Uniform grid over static rectangles, used to find the structures that are near a moving object. */
+public class SpatialGrid implements StructureIndex {
+
+    private final float cellSize;
+    private float originX;
+    private float originY;
+    private int columns;
+    private int rows;
+    private IntArray[] cells = new IntArray[0];
+
+    public SpatialGrid(float cellSize) {
+
+        this.cellSize = cellSize;
+    }
+
+    public void build(Array<Rectangle> structures) {
+
+        columns = 0;
+        rows = 0;
+        cells = new IntArray[0];
+
+        if (structures.isEmpty())
+            return;
+
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+
+        for (var structure : structures) {
+
+            minX = Math.min(minX, structure.x);
+            minY = Math.min(minY, structure.y);
+            maxX = Math.max(maxX, structure.x + structure.width);
+            maxY = Math.max(maxY, structure.y + structure.height);
+        }
+
+        originX = minX;
+        originY = minY;
+        columns = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+        rows = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+        cells = new IntArray[columns * rows];
+
+        for (int i = 0; i < structures.size; i++) {
+
+            var structure = structures.get(i);
+
+            int startColumn = getColumn(structure.x);
+            int endColumn = getColumn(structure.x + structure.width);
+            int startRow = getRow(structure.y);
+            int endRow = getRow(structure.y + structure.height);
+
+            for (int row = startRow; row <= endRow; row++) {
+                for (int column = startColumn; column <= endColumn; column++) {
+
+                    int cellIndex = row * columns + column;
+
+                    if (cells[cellIndex] == null)
+                        cells[cellIndex] = new IntArray(false, 4);
+
+                    cells[cellIndex].add(i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void query(Rectangle area, IntArray result) {
+
+        result.clear();
+
+        if (cells.length == 0 || area.x > originX + columns * cellSize || area.x + area.width < originX
+            || area.y > originY + rows * cellSize || area.y + area.height < originY)
+            return;
+
+        int startColumn = getColumn(area.x);
+        int endColumn = getColumn(area.x + area.width);
+        int startRow = getRow(area.y);
+        int endRow = getRow(area.y + area.height);
+
+        for (int row = startRow; row <= endRow; row++) {
+            for (int column = startColumn; column <= endColumn; column++) {
+
+                var cell = cells[row * columns + column];
+
+                if (cell != null)
+                    result.addAll(cell);
+            }
+        }
+
+        removeDuplicates(result);
+    }
+
+    static void removeDuplicates(IntArray result) {
+
+        if (result.size < 2)
+            return;
+
+        result.sort();
+
+        int[] items = result.items;
+        int uniqueCount = 1;
+
+        for (int i = 1; i < result.size; i++) {
+
+            if (items[i] != items[uniqueCount - 1])
+                items[uniqueCount++] = items[i];
+        }
+
+        result.size = uniqueCount;
+    }
+
+    private int getColumn(float positionX) {
+
+        int column = (int) Math.floor((positionX - originX) / cellSize);
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    private int getRow(float positionY) {
+
+        int row = (int) Math.floor((positionY - originY) / cellSize);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+}
@@ -0,0 +1,184 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Stops a moving rectangle at the structures of a map, shared by the world and by the batches that step many
+ * copies of the player. The caller copies the bounds and the velocity of its object in, collides, and copies them
+ * back. The queries write into the collider, so every thread needs its own.
+ */
+public class StructureCollider {
+
+    //a movement is cut at most this many times, enough to land and slide into a wall in the same step
+    private static final int MAX_SWEEP_ITERATIONS = 4;
+
+    public final Rectangle bounds = new Rectangle();
+    public float velocityX;
+    public float velocityY;
+    //the vertical velocity after landing on a structure, the jump speed for an object that jumps off the ground
+    public float landingVelocityY;
+    //how many times the object landed during the last collision
+    public int landingCount;
+
+    private final IntArray nearbyStructures = new IntArray();
+    private final Rectangle sweptBounds = new Rectangle();
+    private final Rectangle previousPosition = new Rectangle();
+    private final SweepHit hit = new SweepHit();
+
+    /**
+     * Sweeps the bounds from where the object started the step to where they are now, and stops them at the
+     * first structures they hit.
+     */
+    public void sweep(Array<Rectangle> structures, StructureIndex broadPhase, float startX, float startY) {
+
+        float moveX = bounds.x - startX;
+        float moveY = bounds.y - startY;
+        boolean hasStartOverlap = false;
+
+        landingCount = 0;
+        bounds.setPosition(startX, startY);
+
+        for (int iteration = 0; iteration < MAX_SWEEP_ITERATIONS && (moveX != 0 || moveY != 0); iteration++) {
+
+            sweptBounds.set(Math.min(bounds.x, bounds.x + moveX), Math.min(bounds.y, bounds.y + moveY),
+                bounds.width + Math.abs(moveX), bounds.height + Math.abs(moveY));
+
+            broadPhase.query(sweptBounds, nearbyStructures);
+            hit.reset();
+
+            for (int i = 0; i < nearbyStructures.size; i++) {
+
+                int structureIndex = nearbyStructures.get(i);
+                SweptAabb.sweep(bounds, moveX, moveY, structures.get(structureIndex), structureIndex, hit);
+            }
+
+            hasStartOverlap |= hit.hasStartOverlap;
+
+            if (hit.structureIndex == -1) {
+
+                bounds.x += moveX;
+                bounds.y += moveY;
+                break;
+            }
+
+            var structure = structures.get(hit.structureIndex);
+
+            //the object is placed exactly against the structure, so the next sweeps see them touching and not
+            //overlapping by a rounding error, and the rest of the movement slides along the surface
+            if (hit.normalY != 0) {
+
+                bounds.x += moveX * hit.time;
+                bounds.y = hit.normalY > 0 ? structure.y + structure.height : structure.y - bounds.height;
+
+                moveX *= 1 - hit.time;
+                moveY = 0;
+
+                if (hit.normalY > 0)
+                    land();
+                else
+                    velocityY = 0;
+            }
+            else {
+
+                bounds.x = hit.normalX > 0 ? structure.x + structure.width : structure.x - bounds.width;
+                bounds.y += moveY * hit.time;
+
+                moveX = 0;
+                moveY *= 1 - hit.time;
+
+                velocityX = 0;
+            }
+        }
+
+        //an object that was already inside a structure, like one spawned in a wall, can't be ordered by time
+        if (hasStartOverlap)
+            pushOutOfOverlaps(structures, broadPhase);
+    }
+
+    /** Pushes the bounds out of the structures they overlap, on the side they came from. */
+    public void resolveOverlaps(Array<Rectangle> structures, StructureIndex broadPhase) {
+
+        landingCount = 0;
+        pushOutOfOverlaps(structures, broadPhase);
+    }
+
+    private void pushOutOfOverlaps(Array<Rectangle> structures, StructureIndex broadPhase) {
+
+        sweptBounds.set(bounds).merge(getPreviousPosition());
+        broadPhase.query(sweptBounds, nearbyStructures);
+
+        int i = 0;
+
+        while (i < nearbyStructures.size) {
+
+            int structureIndex = nearbyStructures.get(i++);
+
+            resolveStructureCollision(structures.get(structureIndex));
+
+            //if the resolution pushed the object outside the queried cells, the cells around its new position are
+            //added and only the structures after this one are checked, so the result is the same as a full scan
+            if (!isInside(bounds, sweptBounds)) {
+
+                sweptBounds.merge(bounds);
+                broadPhase.query(sweptBounds, nearbyStructures);
+
+                i = 0;
+
+                while (i < nearbyStructures.size && nearbyStructures.get(i) <= structureIndex)
+                    i++;
+            }
+        }
+    }
+
+    //Rectangle.contains is strict, and the bounds always share edges with the area they were merged into
+    private boolean isInside(Rectangle bounds, Rectangle area) {
+
+        return bounds.x >= area.x && bounds.x + bounds.width <= area.x + area.width
+            && bounds.y >= area.y && bounds.y + bounds.height <= area.y + area.height;
+    }
+
+    private void resolveStructureCollision(Rectangle structure) {
+
+        if (!bounds.overlaps(structure))
+            return;
+
+        var previous = getPreviousPosition();
+
+        //the object was above or below the structure, so it is pushed back up or down
+        if (previous.x + previous.width > structure.x && previous.x < structure.x + structure.width) {
+
+            if (velocityY < 0) {
+
+                bounds.y = structure.y + structure.height;
+                land();
+            }
+            else {
+
+                bounds.y = structure.y - bounds.height;
+                velocityY = 0;
+            }
+        }
+        //the object was beside the structure, so it is pushed back to the side it came from
+        else if (previous.y + previous.height > structure.y && previous.y < structure.y + structure.height) {
+
+            if (velocityX > 0)
+                bounds.x = structure.x - bounds.width;
+            else
+                bounds.x = structure.x + structure.width;
+
+            velocityX = 0;
+        }
+    }
+
+    private Rectangle getPreviousPosition() {
+        return previousPosition.set(bounds.x - velocityX, bounds.y - velocityY, bounds.width, bounds.height);
+    }
+
+    private void land() {
+
+        velocityY = landingVelocityY;
+        landingCount++;
+    }
+}
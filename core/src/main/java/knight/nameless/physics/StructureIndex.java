@@ -0,0 +1,14 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+
+/** Broad phase over the structures of the map, finds the ones that are near a moving object. */
+public interface StructureIndex {
+
+    /**
+     * Fills result with the indices of the structures that may overlap the area,
+     * sorted in ascending order and without duplicates.
+     */
+    void query(Rectangle area, IntArray result);
+}
@@ -0,0 +1,125 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.utils.Array;
+
+import knight.nameless.objects.GameObject;
+
+/**
+ * Finds the objects whose bounds overlap each other. The objects are kept sorted by their left edge and only the
+ * ones whose spans on the x axis overlap are compared. They barely move between steps, so the insertion sort that
+ * keeps the order is little more than a pass over them, and the cost grows with the objects and their overlaps
+ * instead of with the square of the objects.
+ */
+public class SweepAndPrune {
+
+    private final Array<GameObject> sortedObjects = new Array<>(true, 16, GameObject.class);
+    //two objects per pair, in the order they were found
+    private final Array<GameObject> pairs = new Array<>(true, 16, GameObject.class);
+    private int swapCount;
+    //an object rarely touches more than a handful of others at once
+    private static final int PAIRS_PER_OBJECT = 16;
+
+    public void add(GameObject gameObject) {
+        sortedObjects.add(gameObject);
+    }
+
+    /** Drops the despawned objects, keeping the order of the others. */
+    public void removeDespawned() {
+
+        GameObject[] items = sortedObjects.items;
+        int keptCount = 0;
+
+        for (int i = 0; i < sortedObjects.size; i++) {
+
+            if (!items[i].isDespawned)
+                items[keptCount++] = items[i];
+        }
+
+        sortedObjects.truncate(keptCount);
+    }
+
+    /** Grows the arrays up front for this many objects, so a new world does not grow them in its first steps. */
+    public void ensureCapacity(int objectCount) {
+
+        sortedObjects.ensureCapacity(objectCount - sortedObjects.size);
+        pairs.ensureCapacity(objectCount * PAIRS_PER_OBJECT * 2 - pairs.size);
+    }
+
+    public void clear() {
+        sortedObjects.clear();
+    }
+
+    public int getObjectCount() {
+        return sortedObjects.size;
+    }
+
+    /**
+     * Returns the pairs of objects that overlap and can touch each other, two objects per pair. Pairs where neither
+     * object is awake are left out, nothing moved them into each other. The array is reused by the next call.
+     */
+    public Array<GameObject> findPairs() {
+
+        sort();
+
+        pairs.clear();
+
+        GameObject[] items = sortedObjects.items;
+        int size = sortedObjects.size;
+
+        for (int i = 0; i < size; i++) {
+
+            GameObject first = items[i];
+
+            if (!first.hasContacts())
+                continue;
+
+            float firstRight = first.bounds.x + first.bounds.width;
+
+            for (int j = i + 1; j < size; j++) {
+
+                GameObject second = items[j];
+
+                //every object after this one starts further right
+                if (second.bounds.x >= firstRight)
+                    break;
+
+                if (!second.hasContacts() || (!first.isAwake && !second.isAwake))
+                    continue;
+
+                if (first.bounds.y < second.bounds.y + second.bounds.height
+                    && second.bounds.y < first.bounds.y + first.bounds.height)
+                    pairs.add(first, second);
+            }
+        }
+
+        return pairs;
+    }
+
+    //stable, so objects with the same left edge keep the order they had
+    private void sort() {
+
+        GameObject[] items = sortedObjects.items;
+        swapCount = 0;
+
+        for (int i = 1; i < sortedObjects.size; i++) {
+
+            GameObject gameObject = items[i];
+            float left = gameObject.bounds.x;
+            int j = i - 1;
+
+            while (j >= 0 && items[j].bounds.x > left) {
+
+                items[j + 1] = items[j];
+                j--;
+            }
+
+            swapCount += i - 1 - j;
+            items[j + 1] = gameObject;
+        }
+    }
+
+    /** How many places the objects moved in the last sort, it stays small while they move a little every step. */
+    public int getSwapCount() {
+        return swapCount;
+    }
+}
@@ -0,0 +1,22 @@
+package knight.nameless.physics;
+
+/** Result of sweeping a moving rectangle against structures with {@link SweptAabb}. */
+public class SweepHit {
+
+    public int structureIndex = -1;
+    //fraction of the movement done when the rectangles touch, from 0 to 1
+    public float time = 1;
+    public float normalX;
+    public float normalY;
+    //set when the moving rectangle already overlapped a structure before moving
+    public boolean hasStartOverlap;
+
+    public void reset() {
+
+        structureIndex = -1;
+        time = 1;
+        normalX = 0;
+        normalY = 0;
+        hasStartOverlap = false;
+    }
+}
@@ -0,0 +1,95 @@
+package knight.nameless.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Continuous collision of a moving rectangle against static ones. Instead of testing where an object ended up,
+ * the whole movement of the step is swept, so a fast object can't pass through a thin structure and the side it
+ * hit comes from the time of impact instead of being guessed from the previous position.
+ */
+public final class SweptAabb {
+
+    private SweptAabb() {
+    }
+
+    /**
+     * Sweeps the rectangle by the movement against a structure, and records the hit in the result when it happens
+     * before the one already there. On a tie the vertical hit wins, so an object landing on a corner lands instead
+     * of being stopped. Rectangles that only slide along each other don't hit, and a structure the rectangle
+     * already overlaps only sets {@link SweepHit#hasStartOverlap}, since there is no time to order it by.
+     */
+    public static boolean sweep(Rectangle moving, float moveX, float moveY, Rectangle structure, int structureIndex,
+                                SweepHit hit) {
+
+        float entryX;
+        float exitX;
+
+        if (moveX > 0) {
+
+            entryX = (structure.x - (moving.x + moving.width)) / moveX;
+            exitX = (structure.x + structure.width - moving.x) / moveX;
+        }
+        else if (moveX < 0) {
+
+            entryX = (structure.x + structure.width - moving.x) / moveX;
+            exitX = (structure.x - (moving.x + moving.width)) / moveX;
+        }
+        else if (moving.x < structure.x + structure.width && moving.x + moving.width > structure.x) {
+
+            entryX = Float.NEGATIVE_INFINITY;
+            exitX = Float.POSITIVE_INFINITY;
+        }
+        else
+            return false;
+
+        float entryY;
+        float exitY;
+
+        if (moveY > 0) {
+
+            entryY = (structure.y - (moving.y + moving.height)) / moveY;
+            exitY = (structure.y + structure.height - moving.y) / moveY;
+        }
+        else if (moveY < 0) {
+
+            entryY = (structure.y + structure.height - moving.y) / moveY;
+            exitY = (structure.y - (moving.y + moving.height)) / moveY;
+        }
+        else if (moving.y < structure.y + structure.height && moving.y + moving.height > structure.y) {
+
+            entryY = Float.NEGATIVE_INFINITY;
+            exitY = Float.POSITIVE_INFINITY;
+        }
+        else
+            return false;
+
+        float entry = Math.max(entryX, entryY);
+        float exit = Math.min(exitX, exitY);
+
+        if (entry >= exit)
+            return false;
+
+        if (entry < 0) {
+
+            if (exit > 0)
+                hit.hasStartOverlap = true;
+
+            return false;
+        }
+
+        boolean isVertical = entryY >= entryX;
+
+        if (entry > hit.time)
+            return false;
+
+        if (entry == hit.time && (hit.structureIndex == -1 || hit.normalY != 0 || !isVertical))
+            return false;
+
+        hit.structureIndex = structureIndex;
+        hit.time = entry;
+        hit.normalX = isVertical ? 0 : -Math.signum(moveX);
+        hit.normalY = isVertical ? -Math.signum(moveY) : 0;
+
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+package knight.nameless.profiling;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import knight.nameless.profiling.FrameProfiler.Phase;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the profiler reports to a file from a thread of its own, as CSV rows when the file ends in .csv and as one
+ * JSON object per line otherwise. The render thread only copies the histograms; if the previous report is still
+ * being written the new one is dropped instead of making the frame wait.
+ */
+public class BackgroundProfileExporter implements ProfileExporter {
+
+    private static final Phase[] PHASES = Phase.values();
+    private final FileHandle file;
+    private final boolean isCsv;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final long startTime = TimeUtils.nanoTime();
+    private final AtomicBoolean isReportPending = new AtomicBoolean();
+    private final Thread thread;
+    private volatile boolean isRunning = true;
+    private long reportTime;
+    private long reportFrameCount;
+    private int reportCount;
+    private int droppedReportCount;
+
+    public BackgroundProfileExporter(FileHandle file) {
+
+        this.file = file;
+        isCsv = file.extension().equalsIgnoreCase("csv");
+
+        for (int i = 0; i < PHASES.length; i++)
+            histograms[i] = new LatencyHistogram();
+
+        if (isCsv)
+            file.writeString("seconds,phase,count,p50_us,p99_us,max_us\n", false);
+        else
+            file.writeString("", false);
+
+        thread = new Thread(this::run, "profile-exporter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void export(FrameProfiler profiler) {
+
+        if (isReportPending.get()) {
+
+            droppedReportCount++;
+            return;
+        }
+
+        for (int i = 0; i < PHASES.length; i++)
+            histograms[i].set(profiler.getReportHistogram(PHASES[i]));
+
+        reportTime = TimeUtils.nanoTime() - startTime;
+        reportFrameCount = profiler.getReportFrameCount();
+
+        //publishes the copies to the writer thread
+        isReportPending.set(true);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+
+        while (isRunning || isReportPending.get()) {
+
+            if (!isReportPending.get()) {
+
+                LockSupport.park(this);
+                continue;
+            }
+
+            file.writeString(isCsv ? formatCsv() : formatJson(), true);
+            reportCount++;
+
+            isReportPending.set(false);
+        }
+    }
+
+    private String formatCsv() {
+
+        var text = new StringBuilder();
+        float seconds = reportTime / 1_000_000_000f;
+
+        for (int i = 0; i < PHASES.length; i++) {
+
+            var histogram = histograms[i];
+
+            text.append(String.format(Locale.ROOT, "%.1f,%s,%d,%.1f,%.1f,%.1f\n", seconds, PHASES[i].label,
+                histogram.getCount(), histogram.getPercentile(50) / 1000f,
+                histogram.getPercentile(99) / 1000f, histogram.getMax() / 1000f));
+        }
+
+        return text.toString();
+    }
+
+    private String formatJson() {
+
+        var text = new StringBuilder();
+
+        text.append(String.format(Locale.ROOT, "{\"seconds\":%.1f,\"frames\":%d,\"phases\":{",
+            reportTime / 1_000_000_000f, reportFrameCount));
+
+        for (int i = 0; i < PHASES.length; i++) {
+
+            var histogram = histograms[i];
+
+            if (i > 0)
+                text.append(',');
+
+            text.append(String.format(Locale.ROOT,
+                "\"%s\":{\"count\":%d,\"p50_us\":%.1f,\"p99_us\":%.1f,\"max_us\":%.1f}", PHASES[i].label,
+                histogram.getCount(), histogram.getPercentile(50) / 1000f,
+                histogram.getPercentile(99) / 1000f, histogram.getMax() / 1000f));
+        }
+
+        return text.append("}}\n").toString();
+    }
+
+    public int getReportCount() {
+        return reportCount;
+    }
+
+    public int getDroppedReportCount() {
+        return droppedReportCount;
+    }
+
+    /** Writes the report still pending, if any, and stops the thread. */
+    @Override
+    public void dispose() {
+
+        isRunning = false;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package knight.nameless.profiling;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Times the phases of every frame and keeps a {@link LatencyHistogram} of each. The histograms cover a report
+ * interval: when one ends they are copied to the report ones, shown by the {@link ProfilerOverlay} and handed to
+ * the {@link ProfileExporter}, and start again. Timing a phase is two reads of the clock, nothing is allocated.
+ */
+public class FrameProfiler {
+
+    public enum Phase {
+
+        INPUT("input"),
+        ENTITY_UPDATE("entity update"),
+        STRUCTURE_COLLISION("structure collision"),
+        ENTITY_COLLISION("entity collision"),
+        SNAPSHOT("snapshot"),
+        LEVEL_LOADING("level loading"),
+        CAMERA_UPDATE("camera update"),
+        CULLING("culling"),
+        MAP_RENDER("map render"),
+        SPRITE_DRAW("sprite draw");
+
+        public final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    public static final float DEFAULT_REPORT_INTERVAL = 5;
+    private static final Phase[] PHASES = Phase.values();
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final LatencyHistogram[] reportHistograms = new LatencyHistogram[PHASES.length];
+    private final long[] phaseStarts = new long[PHASES.length];
+    //a phase can run several times in a frame, like the update of every fixed step, its times are added up
+    private final long[] frameTimes = new long[PHASES.length];
+    private final boolean[] hasRun = new boolean[PHASES.length];
+    private final long reportIntervalNanos;
+    private long reportStart;
+    private long frameCount;
+    private long reportFrameCount;
+    private int reportCount;
+    private ProfileExporter exporter;
+
+    public FrameProfiler() {
+        this(DEFAULT_REPORT_INTERVAL);
+    }
+
+    public FrameProfiler(float reportIntervalSeconds) {
+
+        reportIntervalNanos = (long) (reportIntervalSeconds * 1_000_000_000L);
+
+        for (int i = 0; i < PHASES.length; i++) {
+
+            histograms[i] = new LatencyHistogram();
+            reportHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** The exporter gets every report on the render thread, it has to copy it and write it elsewhere. */
+    public void setExporter(ProfileExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    public void begin(Phase phase) {
+        phaseStarts[phase.ordinal()] = TimeUtils.nanoTime();
+    }
+
+    public void end(Phase phase) {
+
+        int index = phase.ordinal();
+
+        frameTimes[index] += TimeUtils.nanoTime() - phaseStarts[index];
+        hasRun[index] = true;
+    }
+
+    /** Records the phases of the frame, except the ones that did not run, like the update on a frame without steps. */
+    public void endFrame() {
+
+        for (int i = 0; i < PHASES.length; i++) {
+
+            if (!hasRun[i])
+                continue;
+
+            histograms[i].record(frameTimes[i]);
+            frameTimes[i] = 0;
+            hasRun[i] = false;
+        }
+
+        frameCount++;
+
+        long now = TimeUtils.nanoTime();
+
+        if (reportStart == 0)
+            reportStart = now;
+
+        else if (now - reportStart >= reportIntervalNanos)
+            finishReport(now);
+    }
+
+    /** Ends the report interval early, used to export the frames of a run that ends before the interval does. */
+    public void finishReport() {
+
+        if (frameCount > 0)
+            finishReport(TimeUtils.nanoTime());
+    }
+
+    private void finishReport(long now) {
+
+        for (int i = 0; i < PHASES.length; i++) {
+
+            reportHistograms[i].set(histograms[i]);
+            histograms[i].reset();
+        }
+
+        reportFrameCount = frameCount;
+        frameCount = 0;
+        reportStart = now;
+        reportCount++;
+
+        if (exporter != null)
+            exporter.export(this);
+    }
+
+    /** The histogram of the phase over the last finished report interval. */
+    public LatencyHistogram getReportHistogram(Phase phase) {
+        return reportHistograms[phase.ordinal()];
+    }
+
+    public long getReportFrameCount() {
+        return reportFrameCount;
+    }
+
+    /** Goes up by one every finished report, to know when the report histograms changed. */
+    public int getReportCount() {
+        return reportCount;
+    }
+}
@@ -0,0 +1,106 @@
+package knight.nameless.profiling;
+
+/**
+ * Histogram of durations in nanoseconds. The buckets double in size every 16 buckets, so any value is kept within
+ * about 6% with a fixed array, and recording is an increment: no allocation and no lock. A histogram has a single
+ * writer; other threads read copies made on the writer thread with {@link #set(LatencyHistogram)}.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //the last bucket starts at about 68 seconds, anything slower is counted in it
+    private static final int MAX_SHIFT = 32;
+    private static final int BUCKET_COUNT = (MAX_SHIFT + 2) * SUB_BUCKETS;
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long max;
+
+    public void record(long nanos) {
+
+        long value = Math.max(nanos, 0);
+
+        counts[getBucket(value)]++;
+        count++;
+
+        if (value > max)
+            max = value;
+    }
+
+    private static int getBucket(long value) {
+
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        if (shift > MAX_SHIFT)
+            return BUCKET_COUNT - 1;
+
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long getBucketStart(int bucket) {
+
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /** The value below which the given percent of the recorded values fall, rounded up to the end of its bucket. */
+    public long getPercentile(double percent) {
+
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKET_COUNT - 1; bucket++) {
+
+            seen += counts[bucket];
+
+            if (seen >= rank)
+                return Math.min(getBucketStart(bucket + 1) - 1, max);
+        }
+
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void set(LatencyHistogram histogram) {
+
+        System.arraycopy(histogram.counts, 0, counts, 0, BUCKET_COUNT);
+        count = histogram.count;
+        max = histogram.max;
+    }
+
+    /** Adds the values recorded by the other histogram, to merge the ones recorded on several threads. */
+    public void add(LatencyHistogram histogram) {
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            counts[i] += histogram.counts[i];
+
+        count += histogram.count;
+        max = Math.max(max, histogram.max);
+    }
+
+    public void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            counts[i] = 0;
+
+        count = 0;
+        max = 0;
+    }
+}
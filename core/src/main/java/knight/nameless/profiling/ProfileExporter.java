@@ -0,0 +1,13 @@
+package knight.nameless.profiling;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/** Receives the reports of a {@link FrameProfiler}, see {@link BackgroundProfileExporter}. */
+public interface ProfileExporter extends Disposable {
+
+    /**
+     * Called on the render thread when a report interval ends. It must not block: the report histograms are
+     * overwritten by the next report, so they are copied here and written somewhere else.
+     */
+    void export(FrameProfiler profiler);
+}
@@ -0,0 +1,83 @@
+package knight.nameless.profiling;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.utils.Disposable;
+
+import knight.nameless.VisibleSet;
+import knight.nameless.profiling.FrameProfiler.Phase;
+
+/**
+ * Draws the last report of a {@link FrameProfiler} as text, only rebuilt when a new report is done, and what the
+ * culling of the current frame drew and left out.
+ */
+public class ProfilerOverlay implements Disposable {
+
+    private static final Phase[] PHASES = Phase.values();
+    private final BitmapFont font = new BitmapFont();
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder cullingText = new StringBuilder();
+    private int shownReportCount = -1;
+
+    public void draw(Batch batch, FrameProfiler profiler, VisibleSet visibleSet, float x, float y) {
+
+        if (shownReportCount != profiler.getReportCount()) {
+
+            shownReportCount = profiler.getReportCount();
+            buildText(profiler);
+        }
+
+        cullingText.setLength(0);
+        cullingText.append("objects drawn ").append(visibleSet.getDrawnObjectCount())
+            .append(", culled ").append(visibleSet.getCulledObjectCount())
+            .append("\nstructures drawn ").append(visibleSet.getDrawnStructureCount())
+            .append(", culled ").append(visibleSet.getCulledStructureCount());
+
+        float textHeight = font.draw(batch, text, x, y).height;
+        font.draw(batch, cullingText, x, y - textHeight - font.getLineHeight());
+    }
+
+    private void buildText(FrameProfiler profiler) {
+
+        text.setLength(0);
+
+        if (profiler.getReportCount() == 0) {
+
+            text.append("profiling...");
+            return;
+        }
+
+        text.append(profiler.getReportFrameCount()).append(" frames, p50 / p99 / max ms");
+
+        for (var phase : PHASES) {
+
+            var histogram = profiler.getReportHistogram(phase);
+
+            text.append('\n').append(phase.label).append(": ");
+            appendMillis(histogram.getPercentile(50));
+            text.append(" / ");
+            appendMillis(histogram.getPercentile(99));
+            text.append(" / ");
+            appendMillis(histogram.getMax());
+        }
+    }
+
+    //String.format is not available on the web backend
+    private void appendMillis(long nanos) {
+
+        long hundredths = (nanos + 5_000) / 10_000;
+        long fraction = hundredths % 100;
+
+        text.append(hundredths / 100).append('.');
+
+        if (fraction < 10)
+            text.append('0');
+
+        text.append(fraction);
+    }
+
+    @Override
+    public void dispose() {
+        font.dispose();
+    }
+}
@@ -0,0 +1,120 @@
+package knight.nameless.snapshot;
+
+import com.badlogic.gdx.utils.BufferUtils;
+
+import knight.nameless.GameWorld;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Keeps the world state of the last steps in a ring allocated once outside of the heap, so the simulation can be
+ * rewound or any of those steps restored. Every slot is sized for the most objects the world had, writing and
+ * reading one is a copy of a few floats per object with no allocation.
+ */
+public class RewindBuffer {
+
+    private final int capacity;
+    private int maxObjectCount;
+    private int slotBytes;
+    private ByteBuffer buffer;
+    //slot of the latest state and how many states are kept
+    private int newestSlot = -1;
+    private int stateCount;
+    private int resizeCount;
+
+    public RewindBuffer(int capacity, int maxObjectCount) {
+
+        this.capacity = capacity;
+
+        allocate(maxObjectCount);
+    }
+
+    private void allocate(int objectCount) {
+
+        maxObjectCount = objectCount;
+        slotBytes = GameWorld.getMaxStateBytes(objectCount);
+        buffer = BufferUtils.newByteBuffer(capacity * slotBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Adds the current state of the world, replacing the oldest one once the buffer is full. */
+    public void record(GameWorld world) {
+
+        //more objects than the slots were sized for, the old states are dropped to make the slots bigger
+        if (world.getGameObjects().size > maxObjectCount) {
+
+            allocate(world.getGameObjects().size * 2);
+            clear();
+            resizeCount++;
+        }
+
+        newestSlot = (newestSlot + 1) % capacity;
+        stateCount = Math.min(stateCount + 1, capacity);
+
+        world.writeState(selectSlot(newestSlot));
+    }
+
+    /** Puts the world back to the state it had the given number of steps before the latest one, 0 is the latest. */
+    public void restore(GameWorld world, int stepsBack) {
+
+        if (stepsBack < 0 || stepsBack >= stateCount)
+            throw new IllegalArgumentException("Only the last " + stateCount + " steps are kept, not " + stepsBack);
+
+        world.readState(selectSlot(getSlot(stepsBack)));
+    }
+
+    /**
+     * Restores the state of the given number of steps back and forgets the later ones, recording goes on from there.
+     * At least the oldest state is always kept, so it returns how many steps were actually rewound.
+     */
+    public int rewind(GameWorld world, int steps) {
+
+        int rewoundSteps = Math.min(steps, stateCount - 1);
+
+        if (rewoundSteps < 0)
+            return 0;
+
+        restore(world, rewoundSteps);
+
+        newestSlot = getSlot(rewoundSteps);
+        stateCount -= rewoundSteps;
+
+        return rewoundSteps;
+    }
+
+    private int getSlot(int stepsBack) {
+        return (newestSlot - stepsBack + capacity) % capacity;
+    }
+
+    private ByteBuffer selectSlot(int slot) {
+
+        buffer.limit(slot * slotBytes + slotBytes);
+        buffer.position(slot * slotBytes);
+
+        return buffer;
+    }
+
+    public void clear() {
+
+        newestSlot = -1;
+        stateCount = 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** How many of the last steps can be restored. */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int getSlotBytes() {
+        return slotBytes;
+    }
+
+    /** How many times the slots had to grow because the world got more objects, every time the history is lost. */
+    public int getResizeCount() {
+        return resizeCount;
+    }
+}
@@ -0,0 +1,28 @@
+package knight.nameless.snapshot;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import knight.nameless.GameWorld;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** Saves and loads the world state in the same little-endian format the {@link RewindBuffer} keeps in memory. */
+public class SaveGame {
+
+    public static void save(GameWorld world, FileHandle file) {
+
+        var buffer = ByteBuffer.allocate(GameWorld.getMaxStateBytes(world.getGameObjects().size))
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+        world.writeState(buffer);
+
+        file.writeBytes(buffer.array(), 0, buffer.position(), false);
+    }
+
+    /** The world must have the level of the save loaded. */
+    public static void load(GameWorld world, FileHandle file) {
+
+        world.readState(ByteBuffer.wrap(file.readBytes()).order(ByteOrder.LITTLE_ENDIAN));
+    }
+}
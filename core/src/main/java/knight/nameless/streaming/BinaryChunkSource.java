@@ -0,0 +1,71 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Streams a {@link BinaryLevel}. Only the header and the tile sets are kept on the heap, every chunk is decoded
+ * from the buffer when the {@link MapStreamer} loads it. Opened through {@link LevelFiles} on the desktop the file
+ * is mapped, so the heap used does not grow with the level size. On the web the whole file is read into the heap.
+ */
+public class BinaryChunkSource implements ChunkSource {
+
+    private final BinaryLevel level;
+    private final Array<Texture> textures = new Array<>();
+    private final TiledMapTileSets tileSets;
+
+    public BinaryChunkSource(BinaryLevel level) {
+
+        this.level = level;
+        tileSets = level.createTileSets(textures);
+    }
+
+    @Override
+    public int getChunkSize() {
+        return level.getChunkSize();
+    }
+
+    @Override
+    public int getTileWidth() {
+        return level.getTileWidth();
+    }
+
+    @Override
+    public int getTileHeight() {
+        return level.getTileHeight();
+    }
+
+    @Override
+    public int getTileLayerCount() {
+        return level.getTileLayerCount();
+    }
+
+    @Override
+    public String getTileLayerName(int layer) {
+        return level.getTileLayerName(layer);
+    }
+
+    @Override
+    public TiledMapTile getTile(int tileId) {
+        return tileSets.getTile(tileId);
+    }
+
+    @Override
+    public MapChunk getChunk(int chunkX, int chunkY) {
+        return level.readChunk(chunkX, chunkY);
+    }
+
+    @Override
+    public float getPixelWidth() {
+        return level.getPixelWidth();
+    }
+
+    @Override
+    public void dispose() {
+
+        for (var texture : textures)
+            texture.dispose();
+    }
+}
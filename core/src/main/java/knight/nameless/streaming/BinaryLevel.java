@@ -0,0 +1,322 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A level compiled from a Tiled map by the compileLevels task, read straight from a buffer with no XML parsing.
+ * The header is read when the level is opened, the chunks are only decoded when they are asked for.
+ * <p>
+ * Layout, big-endian: the magic number and the version, the hash of the map and tile set files it was compiled
+ * from, tile width and height, map width and height in tiles, chunk size and pixel width. Then the tile sets (name, first id, tile width and height, margin, spacing and image
+ * path), the names of the tile layers, and a directory of chunk x, chunk y and offset sorted by x and then y.
+ * Every chunk has a presence byte per tile layer followed by its tile ids, then its structures and enemy spawns
+ * as a count followed by x, y, width and height floats.
+ */
+public class BinaryLevel {
+
+    //"LVL1"
+    public static final int MAGIC = 0x4C564C31;
+    public static final int VERSION = 2;
+    public static final String EXTENSION = ".lvl";
+    private static final int DIRECTORY_ENTRY_BYTES = 12;
+    private static final int HEADER_START_BYTES = 16;
+    private final ByteBuffer buffer;
+    private final long sourceHash;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int chunkSize;
+    private final float pixelWidth;
+    private final Array<TileSetEntry> tileSetEntries = new Array<>();
+    private final Array<String> tileLayerNames = new Array<>();
+    private final int chunkCount;
+    private final int directoryOffset;
+
+    private static class TileSetEntry {
+
+        String name;
+        int firstId;
+        int tileWidth;
+        int tileHeight;
+        int margin;
+        int spacing;
+        String imagePath;
+    }
+
+    public BinaryLevel(ByteBuffer buffer) {
+
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC)
+            throw new GdxRuntimeException("Not a binary level");
+
+        int version = buffer.getInt(4);
+
+        if (version != VERSION)
+            throw new GdxRuntimeException("Binary level version " + version + " is not supported, compile it again");
+
+        sourceHash = buffer.getLong(8);
+        buffer.position(HEADER_START_BYTES);
+
+        tileWidth = buffer.getInt();
+        tileHeight = buffer.getInt();
+        mapWidth = buffer.getInt();
+        mapHeight = buffer.getInt();
+        chunkSize = buffer.getInt();
+        pixelWidth = buffer.getFloat();
+
+        int tileSetCount = buffer.getInt();
+
+        for (int i = 0; i < tileSetCount; i++) {
+
+            var entry = new TileSetEntry();
+
+            entry.name = readString();
+            entry.firstId = buffer.getInt();
+            entry.tileWidth = buffer.getInt();
+            entry.tileHeight = buffer.getInt();
+            entry.margin = buffer.getInt();
+            entry.spacing = buffer.getInt();
+            entry.imagePath = readString();
+
+            tileSetEntries.add(entry);
+        }
+
+        int layerCount = buffer.getInt();
+
+        for (int i = 0; i < layerCount; i++)
+            tileLayerNames.add(readString());
+
+        chunkCount = buffer.getInt();
+        directoryOffset = buffer.position();
+    }
+
+    /** Reads the whole file into a heap buffer, the way {@link LevelFiles} opens levels on the web. */
+    public static BinaryLevel read(FileHandle file) {
+        return new BinaryLevel(ByteBuffer.wrap(file.readBytes()));
+    }
+
+    /**
+     * Reads only the source hash of a compiled level, to check it against its map before opening it. Returns 0, which
+     * {@link LevelFiles#hashSources} never does, if the file is not a level of this version.
+     */
+    public static long readSourceHash(FileHandle file) {
+
+        var bytes = new byte[HEADER_START_BYTES];
+
+        try (var input = file.read()) {
+
+            int count = 0;
+
+            while (count < bytes.length) {
+
+                int read = input.read(bytes, count, bytes.length - count);
+
+                if (read == -1)
+                    return 0;
+
+                count += read;
+            }
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Could not read the level " + file, exception);
+        }
+
+        var header = ByteBuffer.wrap(bytes);
+
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+            return 0;
+
+        return header.getLong(8);
+    }
+
+    private String readString() {
+
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long getSourceHash() {
+        return sourceHash;
+    }
+
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    public int getMapWidth() {
+        return mapWidth;
+    }
+
+    public int getMapHeight() {
+        return mapHeight;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public float getPixelWidth() {
+        return pixelWidth;
+    }
+
+    public int getTileLayerCount() {
+        return tileLayerNames.size;
+    }
+
+    public String getTileLayerName(int layer) {
+        return tileLayerNames.get(layer);
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /** Returns null if the level has nothing in that chunk. */
+    public MapChunk readChunk(int chunkX, int chunkY) {
+
+        int low = 0;
+        int high = chunkCount - 1;
+
+        while (low <= high) {
+
+            int middle = (low + high) >>> 1;
+            int entryOffset = directoryOffset + middle * DIRECTORY_ENTRY_BYTES;
+
+            int entryX = buffer.getInt(entryOffset);
+            int entryY = buffer.getInt(entryOffset + 4);
+            int comparison = entryX != chunkX ? Integer.compare(entryX, chunkX) : Integer.compare(entryY, chunkY);
+
+            if (comparison == 0)
+                return readChunkAt(middle);
+
+            if (comparison < 0)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+
+        return null;
+    }
+
+    /** Reads the chunk at a position of the directory, from 0 to {@link #getChunkCount()}. */
+    public MapChunk readChunkAt(int index) {
+
+        int entryOffset = directoryOffset + index * DIRECTORY_ENTRY_BYTES;
+
+        var chunk = new MapChunk(buffer.getInt(entryOffset), buffer.getInt(entryOffset + 4), chunkSize);
+        int offset = buffer.getInt(entryOffset + 8);
+        int tileCount = chunkSize * chunkSize;
+
+        for (int layer = 0; layer < tileLayerNames.size; layer++) {
+
+            boolean hasTiles = buffer.get(offset++) != 0;
+
+            if (!hasTiles)
+                continue;
+
+            for (int i = 0; i < tileCount; i++, offset += 4) {
+
+                int tileId = buffer.getInt(offset);
+
+                if (tileId != 0)
+                    chunk.setTile(layer, i % chunkSize, i / chunkSize, tileId);
+            }
+        }
+
+        int structureCount = buffer.getInt(offset);
+        offset += 4;
+
+        for (int i = 0; i < structureCount; i++, offset += 16) {
+
+            chunk.addStructure(buffer.getFloat(offset), buffer.getFloat(offset + 4), buffer.getFloat(offset + 8),
+                buffer.getFloat(offset + 12));
+        }
+
+        int enemyCount = buffer.getInt(offset);
+        offset += 4;
+
+        for (int i = 0; i < enemyCount; i++, offset += 16) {
+
+            chunk.addEnemySpawn(buffer.getFloat(offset), buffer.getFloat(offset + 4), buffer.getFloat(offset + 8),
+                buffer.getFloat(offset + 12));
+        }
+
+        return chunk;
+    }
+
+    public int getTileSetCount() {
+        return tileSetEntries.size;
+    }
+
+    /** The internal path of the image of the tile set, to load it some other way than {@link #createTileSets}. */
+    public String getTileSetImagePath(int tileSet) {
+        return tileSetEntries.get(tileSet).imagePath;
+    }
+
+    /**
+     * Loads the images of the tile sets and cuts them into tiles the same way TmxMapLoader does. The textures are
+     * added to the array, they belong to the caller.
+     */
+    public TiledMapTileSets createTileSets(Array<Texture> textures) {
+
+        int start = textures.size;
+
+        for (var entry : tileSetEntries)
+            textures.add(new Texture(Gdx.files.internal(entry.imagePath)));
+
+        return cutTileSets(textures, start);
+    }
+
+    /** Cuts the tile sets out of images already loaded, one per tile set in order from the start index. */
+    public TiledMapTileSets cutTileSets(Array<Texture> images, int start) {
+
+        var tileSets = new TiledMapTileSets();
+
+        for (int i = 0; i < tileSetEntries.size; i++) {
+
+            var entry = tileSetEntries.get(i);
+            var texture = images.get(start + i);
+
+            var tileSet = new TiledMapTileSet();
+            tileSet.setName(entry.name);
+            tileSet.getProperties().put("firstgid", entry.firstId);
+
+            int stopWidth = texture.getWidth() - entry.tileWidth;
+            int stopHeight = texture.getHeight() - entry.tileHeight;
+            int id = entry.firstId;
+
+            for (int y = entry.margin; y <= stopHeight; y += entry.tileHeight + entry.spacing) {
+                for (int x = entry.margin; x <= stopWidth; x += entry.tileWidth + entry.spacing) {
+
+                    var tile = new StaticTiledMapTile(new TextureRegion(texture, x, y, entry.tileWidth, entry.tileHeight));
+                    tile.setId(id);
+                    tileSet.putTile(id++, tile);
+                }
+            }
+
+            tileSets.addTileSet(tileSet);
+        }
+
+        return tileSets;
+    }
+}
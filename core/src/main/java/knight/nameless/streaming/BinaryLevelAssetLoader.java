@@ -0,0 +1,65 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads a compiled level through an AssetManager, like TmxMapLoader does for the map it was compiled from. The
+ * tile set images are loaded as textures of the manager first, then the level is read and the map put together
+ * on the loader thread, nothing but the texture upload runs on the render thread.
+ */
+public class BinaryLevelAssetLoader extends AsynchronousAssetLoader<TiledMap, BinaryLevelAssetLoader.Parameters> {
+
+    public static class Parameters extends AssetLoaderParameters<TiledMap> {
+    }
+
+    //a manager loads one asset at a time, like TmxMapLoader the loader keeps the one it is loading
+    private BinaryLevel level;
+    private TiledMap tiledMap;
+
+    public BinaryLevelAssetLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameter) {
+
+        level = LevelFiles.readLevel(file);
+
+        var dependencies = new Array<AssetDescriptor>();
+
+        for (int i = 0; i < level.getTileSetCount(); i++)
+            dependencies.add(new AssetDescriptor<>(resolve(level.getTileSetImagePath(i)), Texture.class));
+
+        return dependencies;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+
+        var images = new Array<Texture>();
+
+        for (int i = 0; i < level.getTileSetCount(); i++)
+            images.add(manager.get(resolve(level.getTileSetImagePath(i)).path(), Texture.class));
+
+        //the textures stay with the manager, which unloads them with the map
+        tiledMap = new BinaryLevelLoader().load(level, level.cutTileSets(images, 0));
+        level = null;
+    }
+
+    @Override
+    public TiledMap loadSync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+
+        var loadedMap = tiledMap;
+        tiledMap = null;
+
+        return loadedMap;
+    }
+}
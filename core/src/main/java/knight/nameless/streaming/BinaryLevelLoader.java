@@ -0,0 +1,123 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads a whole {@link BinaryLevel} into a {@link TiledMap}, with the same layers TmxMapLoader gives for the map it
+ * was compiled from: the tile layers, a "Collisions" layer and an "Enemies" layer. The structures come cut at the
+ * chunk borders, the pieces collide the same way the whole rectangle did.
+ */
+public class BinaryLevelLoader {
+
+    public TiledMap load(String fileName) {
+        return load(LevelFiles.readLevel(Gdx.files.internal(fileName)));
+    }
+
+    public TiledMap load(BinaryLevel level) {
+
+        var textures = new Array<Texture>();
+        var tiledMap = load(level, level.createTileSets(textures));
+
+        tiledMap.setOwnedResources(textures);
+
+        return tiledMap;
+    }
+
+    /** The map of the level with tile sets cut from images loaded elsewhere, the map does not own them. */
+    public TiledMap load(BinaryLevel level, TiledMapTileSets tileSets) {
+
+        var tiledMap = new TiledMap();
+
+        for (var tileSet : tileSets)
+            tiledMap.getTileSets().addTileSet(tileSet);
+
+        int mapWidth = level.getMapWidth();
+        int mapHeight = level.getMapHeight();
+        int tileWidth = level.getTileWidth();
+        int tileHeight = level.getTileHeight();
+
+        var properties = tiledMap.getProperties();
+        properties.put("width", mapWidth);
+        properties.put("height", mapHeight);
+        properties.put("tilewidth", tileWidth);
+        properties.put("tileheight", tileHeight);
+
+        var collisions = new MapLayer();
+        collisions.setName("Collisions");
+
+        var enemies = new MapLayer();
+        enemies.setName("Enemies");
+
+        var tileLayers = new Array<TiledMapTileLayer>();
+
+        for (int layer = 0; layer < level.getTileLayerCount(); layer++) {
+
+            var tileLayer = new TiledMapTileLayer(mapWidth, mapHeight, tileWidth, tileHeight);
+            tileLayer.setName(level.getTileLayerName(layer));
+
+            tileLayers.add(tileLayer);
+        }
+
+        for (int i = 0; i < level.getChunkCount(); i++) {
+
+            var chunk = level.readChunkAt(i);
+
+            addTiles(chunk, tileLayers, tiledMap);
+            addRectangles(chunk.structures.items, chunk.structures.size, collisions);
+            addRectangles(chunk.enemySpawns.items, chunk.enemySpawns.size, enemies);
+        }
+
+        tiledMap.getLayers().add(collisions);
+        tiledMap.getLayers().add(enemies);
+
+        for (var tileLayer : tileLayers)
+            tiledMap.getLayers().add(tileLayer);
+
+        return tiledMap;
+    }
+
+    private void addTiles(MapChunk chunk, Array<TiledMapTileLayer> tileLayers, TiledMap tiledMap) {
+
+        int chunkSize = chunk.getChunkSize();
+
+        for (int layer = 0; layer < chunk.getLayerCount(); layer++) {
+
+            int[] tiles = chunk.getTiles(layer);
+
+            if (tiles == null)
+                continue;
+
+            var tileLayer = tileLayers.get(layer);
+
+            for (int i = 0; i < tiles.length; i++) {
+
+                if (tiles[i] == 0)
+                    continue;
+
+                var tile = tiledMap.getTileSets().getTile(MapChunk.getTileIdWithoutFlags(tiles[i]));
+                int column = chunk.chunkX * chunkSize + i % chunkSize;
+                int row = chunk.chunkY * chunkSize + i / chunkSize;
+
+                //the layer has the declared size of the map, an infinite map is cut to it
+                if (tile != null)
+                    tileLayer.setCell(column, row, MapChunk.createCell(tiles[i]).setTile(tile));
+            }
+        }
+    }
+
+    private void addRectangles(float[] rectangles, int size, MapLayer mapLayer) {
+
+        for (int i = 0; i < size; i += 4) {
+
+            var mapObject = new RectangleMapObject(rectangles[i], rectangles[i + 1], rectangles[i + 2], rectangles[i + 3]);
+            mapLayer.getObjects().add(mapObject);
+        }
+    }
+}
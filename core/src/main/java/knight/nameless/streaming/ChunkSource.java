@@ -0,0 +1,29 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.utils.Disposable;
+
+/** Where a {@link MapStreamer} reads the chunks of a map from, one at a time as they are needed. */
+public interface ChunkSource extends Disposable {
+
+    /** Width and height of a chunk in tiles. */
+    int getChunkSize();
+
+    int getTileWidth();
+
+    int getTileHeight();
+
+    /** The tile layers of the map in drawing order, the first one is drawn first. */
+    int getTileLayerCount();
+
+    String getTileLayerName(int layer);
+
+    /** The tile of a global tile id, without the flip flags. */
+    TiledMapTile getTile(int tileId);
+
+    /** Returns null if there is nothing in the chunk. */
+    MapChunk getChunk(int chunkX, int chunkY);
+
+    /** How far to the right the map goes, used to stop the camera at the end of the level. */
+    float getPixelWidth();
+}
@@ -0,0 +1,137 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Opens a map from the level compiled next to it when there is one that was compiled from the current map, and
+ * from the .tmx file otherwise, so a map edited after the last compileLevels run is not replaced by its old level.
+ */
+public final class LevelFiles {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final String TILE_SET_SOURCE = "source=\"";
+    private static LevelReader levelReader = LevelReader.HEAP;
+    //the map paths already checked against their levels, so switching back to a level does not hash its map again
+    private static final ObjectMap<String, Boolean> upToDateLevels = new ObjectMap<>();
+
+    private LevelFiles() {
+    }
+
+    /** How every compiled level is opened, the desktop and headless launchers map the files. */
+    public static void setLevelReader(LevelReader reader) {
+        levelReader = reader;
+    }
+
+    public static BinaryLevel readLevel(FileHandle file) {
+        return levelReader.read(file);
+    }
+
+    public static String getLevelPath(String mapPath) {
+
+        int extensionStart = mapPath.lastIndexOf('.');
+
+        return (extensionStart == -1 ? mapPath : mapPath.substring(0, extensionStart)) + BinaryLevel.EXTENSION;
+    }
+
+    /** The file to queue in an AssetManager for the map, which has a loader for both kinds. */
+    public static String getMapAssetPath(String mapPath) {
+        return isLevelUpToDate(mapPath) ? getLevelPath(mapPath) : mapPath;
+    }
+
+    public static TiledMap loadMap(String mapPath) {
+
+        if (isLevelUpToDate(mapPath))
+            return new BinaryLevelLoader().load(readLevel(Gdx.files.internal(getLevelPath(mapPath))));
+
+        return new TmxMapLoader().load(mapPath);
+    }
+
+    public static ChunkSource openChunkSource(String mapPath) {
+
+        if (isLevelUpToDate(mapPath))
+            return new BinaryChunkSource(readLevel(Gdx.files.internal(getLevelPath(mapPath))));
+
+        return new TmxChunkSource(mapPath);
+    }
+
+    //a level shipped without its map is always used, there is nothing newer to fall back to
+    private static boolean isLevelUpToDate(String mapPath) {
+
+        var isUpToDate = upToDateLevels.get(mapPath);
+
+        if (isUpToDate != null)
+            return isUpToDate;
+
+        var levelFile = Gdx.files.internal(getLevelPath(mapPath));
+        var mapFile = Gdx.files.internal(mapPath);
+
+        isUpToDate = levelFile.exists()
+            && (!mapFile.exists() || BinaryLevel.readSourceHash(levelFile) == hashSources(mapFile));
+
+        if (levelFile.exists() && !isUpToDate)
+            Gdx.app.log("LevelFiles", levelFile.path() + " is older than its map, loading " + mapPath);
+
+        upToDateLevels.put(mapPath, isUpToDate);
+
+        return isUpToDate;
+    }
+
+    /**
+     * Hashes a map and the tile set files it references with 64-bit FNV-1a, which the level compiler stores in the
+     * level. Never returns 0.
+     */
+    public static long hashSources(FileHandle mapFile) {
+
+        var mapBytes = mapFile.readBytes();
+        long hash = hashBytes(FNV_OFFSET_BASIS, mapBytes);
+
+        //external tile sets are written as <tileset firstgid="1" source="tileset/environment.tsx"/>
+        var mapText = new String(mapBytes, StandardCharsets.UTF_8);
+        int sourceStart = mapText.indexOf(TILE_SET_SOURCE);
+
+        while (sourceStart != -1) {
+
+            int pathStart = sourceStart + TILE_SET_SOURCE.length();
+            int pathEnd = mapText.indexOf('"', pathStart);
+            var path = mapText.substring(pathStart, pathEnd);
+
+            if (path.endsWith(".tsx"))
+                hash = hashBytes(hash, resolve(mapFile.parent(), path).readBytes());
+
+            sourceStart = mapText.indexOf(TILE_SET_SOURCE, pathEnd);
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long hashBytes(long hash, byte[] bytes) {
+
+        for (byte value : bytes) {
+
+            hash ^= value & 0xff;
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    private static FileHandle resolve(FileHandle folder, String path) {
+
+        for (var part : path.split("/")) {
+
+            if (part.equals(".."))
+                folder = folder.parent();
+            else if (!part.isEmpty() && !part.equals("."))
+                folder = folder.child(part);
+        }
+
+        return folder;
+    }
+}
@@ -0,0 +1,12 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.files.FileHandle;
+
+/** Opens the bytes of a compiled level, set through {@link LevelFiles#setLevelReader}. */
+public interface LevelReader {
+
+    //reads the whole file into a heap buffer, the only way on the web
+    LevelReader HEAP = BinaryLevel::read;
+
+    BinaryLevel read(FileHandle file);
+}
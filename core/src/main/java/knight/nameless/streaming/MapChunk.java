@@ -0,0 +1,109 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * The tiles, structures and enemy spawns of a square part of a map, in the compact form they are kept in while
+ * the chunk is not loaded into the world. Chunk (0, 0) starts at the origin of the world and y grows upwards.
+ */
+public class MapChunk {
+
+    private static final int FLAG_FLIP_HORIZONTALLY = 0x80000000;
+    private static final int FLAG_FLIP_VERTICALLY = 0x40000000;
+    private static final int FLAG_FLIP_DIAGONALLY = 0x20000000;
+    private static final int MASK_CLEAR = 0xE0000000;
+
+    public final int chunkX;
+    public final int chunkY;
+    private final int chunkSize;
+    //one array per tile layer with the global tile ids, flip flags included, row by row from the bottom
+    private final Array<int[]> layerTiles = new Array<>();
+    //x, y, width and height of every structure, cut to the bounds of the chunk
+    public final FloatArray structures = new FloatArray();
+    //x, y, width and height of every enemy that starts in this chunk
+    public final FloatArray enemySpawns = new FloatArray();
+
+    public MapChunk(int chunkX, int chunkY, int chunkSize) {
+
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getLayerCount() {
+        return layerTiles.size;
+    }
+
+    /** Returns null if the layer has no tiles in this chunk. */
+    public int[] getTiles(int layer) {
+        return layer < layerTiles.size ? layerTiles.get(layer) : null;
+    }
+
+    public void setTile(int layer, int column, int row, int tileId) {
+
+        if (layerTiles.size <= layer)
+            layerTiles.setSize(layer + 1);
+
+        int[] tiles = layerTiles.get(layer);
+
+        if (tiles == null) {
+
+            tiles = new int[chunkSize * chunkSize];
+            layerTiles.set(layer, tiles);
+        }
+
+        tiles[row * chunkSize + column] = tileId;
+    }
+
+    public void addStructure(float x, float y, float width, float height) {
+        structures.add(x, y, width, height);
+    }
+
+    public void addEnemySpawn(float x, float y, float width, float height) {
+        enemySpawns.add(x, y, width, height);
+    }
+
+    public static int getTileIdWithoutFlags(int tileId) {
+        return tileId & ~MASK_CLEAR;
+    }
+
+    //the same rotations TmxMapLoader uses for the flip flags of tiled
+    public static Cell createCell(int tileId) {
+
+        boolean flipHorizontally = (tileId & FLAG_FLIP_HORIZONTALLY) != 0;
+        boolean flipVertically = (tileId & FLAG_FLIP_VERTICALLY) != 0;
+        boolean flipDiagonally = (tileId & FLAG_FLIP_DIAGONALLY) != 0;
+
+        var cell = new Cell();
+
+        if (!flipDiagonally) {
+
+            cell.setFlipHorizontally(flipHorizontally);
+            cell.setFlipVertically(flipVertically);
+        }
+        else if (flipHorizontally && flipVertically) {
+
+            cell.setFlipHorizontally(true);
+            cell.setRotation(Cell.ROTATE_270);
+        }
+        else if (flipHorizontally)
+            cell.setRotation(Cell.ROTATE_270);
+
+        else if (flipVertically)
+            cell.setRotation(Cell.ROTATE_90);
+
+        else {
+
+            cell.setFlipVertically(true);
+            cell.setRotation(Cell.ROTATE_270);
+        }
+
+        return cell;
+    }
+}
@@ -0,0 +1,293 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.maps.MapGroupLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+
+import knight.nameless.GameWorld;
+import knight.nameless.objects.Enemy;
+
+/**
+ * Loads the chunks of a map around the camera into the world and the tiled map that is drawn: the tiles, the
+ * structures and the enemies. Chunks that are left behind stay loaded while they fit in the memory budget, then
+ * the ones that were seen the longest time ago are unloaded first. The enemies belong to the chunk they spawn in,
+ * so they go away with it and spawn again when it is loaded again.
+ */
+public class MapStreamer {
+
+    //rough sizes on a 64-bit JVM, only used to compare the loaded chunks against the budget
+    private static final int CELL_BYTES = 32;
+    private static final int CELL_REFERENCE_BYTES = 8;
+    private static final int STRUCTURE_BYTES = 64;
+    private static final int ENEMY_BYTES = 1024;
+    //the chunks this far around the view are loaded, so they are ready before they are seen
+    private final float loadMargin;
+    private final ChunkSource source;
+    private final GameWorld world;
+    private final long memoryBudget;
+    private final TiledMap tiledMap = new TiledMap();
+    private final Array<MapGroupLayer> layerGroups = new Array<>();
+    private final LongMap<LoadedChunk> loadedChunks = new LongMap<>();
+    private final Array<LoadedChunk> loadedChunkList = new Array<>();
+    //for every structure index of the world, the chunk that owns it and where the chunk keeps that index
+    private final Array<LoadedChunk> structureOwners = new Array<>();
+    private final IntArray structureSlots = new IntArray();
+    private long loadedBytes;
+    private int frame;
+    private int startColumn;
+    private int endColumn;
+    private int startRow;
+    private int endRow;
+    private int loadCount;
+    private int unloadCount;
+
+    private static class LoadedChunk {
+
+        MapChunk data;
+        long key;
+        long estimatedBytes;
+        int lastUsedFrame;
+        final IntArray structureIndices = new IntArray();
+        final Array<Enemy> enemies = new Array<>();
+        //an enemy that despawned on its own may have been spawned again somewhere else by the time the chunk unloads
+        final IntArray enemySpawnIds = new IntArray();
+        final Array<TiledMapTileLayer> tileLayers = new Array<>();
+        final IntArray tileLayerIndices = new IntArray();
+    }
+
+    public MapStreamer(ChunkSource source, GameWorld world, long memoryBudget) {
+
+        this.source = source;
+        this.world = world;
+        this.memoryBudget = memoryBudget;
+
+        loadMargin = source.getChunkSize() * Math.max(source.getTileWidth(), source.getTileHeight()) / 2f;
+
+        //one group per tile layer keeps the drawing order of the layers whatever the order the chunks load in
+        for (int layer = 0; layer < source.getTileLayerCount(); layer++) {
+
+            var group = new MapGroupLayer();
+            group.setName(source.getTileLayerName(layer));
+
+            layerGroups.add(group);
+            tiledMap.getLayers().add(group);
+        }
+
+        world.beginStreaming(source.getPixelWidth());
+    }
+
+    /** The map to draw, it only has the tiles of the loaded chunks. */
+    public TiledMap getTiledMap() {
+        return tiledMap;
+    }
+
+    public int getLoadedChunkCount() {
+        return loadedChunkList.size;
+    }
+
+    public long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    public int getLoadCount() {
+        return loadCount;
+    }
+
+    public int getUnloadCount() {
+        return unloadCount;
+    }
+
+    /** Loads the chunks around the view, usually the camera, and unloads the old ones if the budget is exceeded. */
+    public void update(float viewX, float viewY, float viewWidth, float viewHeight) {
+
+        frame++;
+
+        float chunkPixelWidth = source.getChunkSize() * source.getTileWidth();
+        float chunkPixelHeight = source.getChunkSize() * source.getTileHeight();
+
+        startColumn = (int) Math.floor((viewX - loadMargin) / chunkPixelWidth);
+        endColumn = (int) Math.floor((viewX + viewWidth + loadMargin) / chunkPixelWidth);
+        startRow = (int) Math.floor((viewY - loadMargin) / chunkPixelHeight);
+        endRow = (int) Math.floor((viewY + viewHeight + loadMargin) / chunkPixelHeight);
+
+        for (int chunkY = startRow; chunkY <= endRow; chunkY++) {
+            for (int chunkX = startColumn; chunkX <= endColumn; chunkX++) {
+
+                long key = TmxChunkSource.getKey(chunkX, chunkY);
+                var loadedChunk = loadedChunks.get(key);
+
+                if (loadedChunk == null) {
+
+                    var data = source.getChunk(chunkX, chunkY);
+
+                    if (data == null)
+                        continue;
+
+                    loadedChunk = loadChunk(data, key);
+                }
+
+                loadedChunk.lastUsedFrame = frame;
+            }
+        }
+
+        while (loadedBytes > memoryBudget) {
+
+            var oldestChunk = findOldestChunk();
+
+            //the chunks around the view are always kept, even if they do not fit
+            if (oldestChunk == null)
+                break;
+
+            unloadChunk(oldestChunk);
+        }
+    }
+
+    private LoadedChunk findOldestChunk() {
+
+        LoadedChunk oldestChunk = null;
+
+        for (var loadedChunk : loadedChunkList) {
+
+            if (loadedChunk.lastUsedFrame == frame)
+                continue;
+
+            if (oldestChunk == null || loadedChunk.lastUsedFrame < oldestChunk.lastUsedFrame)
+                oldestChunk = loadedChunk;
+        }
+
+        return oldestChunk;
+    }
+
+    private LoadedChunk loadChunk(MapChunk data, long key) {
+
+        var loadedChunk = new LoadedChunk();
+        loadedChunk.data = data;
+        loadedChunk.key = key;
+
+        var structures = data.structures;
+
+        for (int i = 0; i < structures.size; i += 4) {
+
+            var structure = new Rectangle(structures.get(i), structures.get(i + 1), structures.get(i + 2),
+                structures.get(i + 3));
+
+            int index = world.addStructure(structure);
+
+            structureOwners.add(loadedChunk);
+            structureSlots.add(loadedChunk.structureIndices.size);
+            loadedChunk.structureIndices.add(index);
+        }
+
+        var enemySpawns = data.enemySpawns;
+
+        for (int i = 0; i < enemySpawns.size; i += 4) {
+
+            var enemy = world.spawnEnemy(enemySpawns.get(i), enemySpawns.get(i + 1), enemySpawns.get(i + 2),
+                enemySpawns.get(i + 3));
+
+            loadedChunk.enemies.add(enemy);
+            loadedChunk.enemySpawnIds.add(enemy.spawnId);
+        }
+
+        int tileCount = 0;
+
+        for (int layer = 0; layer < data.getLayerCount(); layer++) {
+
+            int[] tiles = data.getTiles(layer);
+
+            if (tiles == null)
+                continue;
+
+            loadedChunk.tileLayers.add(createTileLayer(data, tiles, layer));
+            loadedChunk.tileLayerIndices.add(layer);
+
+            tileCount += tiles.length;
+        }
+
+        loadedChunk.estimatedBytes = (long) tileCount * (CELL_BYTES + CELL_REFERENCE_BYTES)
+            + (long) structures.size / 4 * STRUCTURE_BYTES + (long) enemySpawns.size / 4 * ENEMY_BYTES;
+
+        loadedBytes += loadedChunk.estimatedBytes;
+        loadedChunks.put(key, loadedChunk);
+        loadedChunkList.add(loadedChunk);
+        loadCount++;
+
+        return loadedChunk;
+    }
+
+    private TiledMapTileLayer createTileLayer(MapChunk data, int[] tiles, int layer) {
+
+        int chunkSize = data.getChunkSize();
+        int tileWidth = source.getTileWidth();
+        int tileHeight = source.getTileHeight();
+
+        var tileLayer = new TiledMapTileLayer(chunkSize, chunkSize, tileWidth, tileHeight);
+
+        //the layer is drawn at the position of the chunk, the render offset grows downwards like in tiled
+        tileLayer.setOffsetX(data.chunkX * chunkSize * tileWidth);
+        tileLayer.setOffsetY(-data.chunkY * chunkSize * tileHeight);
+
+        for (int row = 0; row < chunkSize; row++) {
+            for (int column = 0; column < chunkSize; column++) {
+
+                int tileId = tiles[row * chunkSize + column];
+                var tile = tileId == 0 ? null : source.getTile(MapChunk.getTileIdWithoutFlags(tileId));
+
+                if (tile != null)
+                    tileLayer.setCell(column, row, MapChunk.createCell(tileId).setTile(tile));
+            }
+        }
+
+        var group = layerGroups.get(layer);
+
+        tileLayer.setParent(group);
+        group.getLayers().add(tileLayer);
+
+        return tileLayer;
+    }
+
+    private void unloadChunk(LoadedChunk loadedChunk) {
+
+        var structureIndices = loadedChunk.structureIndices;
+
+        while (structureIndices.notEmpty()) {
+
+            int index = structureIndices.pop();
+            int movedIndex = world.removeStructure(index);
+
+            //the world moved its last structure into the freed index, so its owner is told where it is now
+            if (movedIndex != -1) {
+
+                var owner = structureOwners.get(movedIndex);
+                int slot = structureSlots.get(movedIndex);
+
+                owner.structureIndices.set(slot, index);
+                structureOwners.set(index, owner);
+                structureSlots.set(index, slot);
+            }
+
+            structureOwners.pop();
+            structureSlots.pop();
+        }
+
+        for (int i = 0; i < loadedChunk.enemies.size; i++) {
+
+            var enemy = loadedChunk.enemies.get(i);
+
+            if (enemy.spawnId == loadedChunk.enemySpawnIds.get(i))
+                world.despawnEnemy(enemy);
+        }
+
+        for (int i = 0; i < loadedChunk.tileLayers.size; i++)
+            layerGroups.get(loadedChunk.tileLayerIndices.get(i)).getLayers().remove(loadedChunk.tileLayers.get(i));
+
+        loadedBytes -= loadedChunk.estimatedBytes;
+        loadedChunks.remove(loadedChunk.key);
+        loadedChunkList.removeValue(loadedChunk, true);
+        unloadCount++;
+    }
+}
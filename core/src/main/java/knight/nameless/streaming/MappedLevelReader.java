@@ -0,0 +1,32 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Maps the level file into memory instead of copying it to the heap. Only the pages of the chunks that are read get
+ * loaded, and the system can drop them again, so a streamed level of any size costs the same heap. A level packed
+ * in a jar has no file to map and is read into the heap. Desktop only, it is excluded from the GWT build.
+ */
+public class MappedLevelReader implements LevelReader {
+
+    @Override
+    public BinaryLevel read(FileHandle file) {
+
+        if (file.type() == FileType.Classpath || !file.file().exists())
+            return BinaryLevel.read(file);
+
+        //the mapping stays valid after the channel is closed
+        try (var channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ)) {
+            return new BinaryLevel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Could not map the level " + file, exception);
+        }
+    }
+}
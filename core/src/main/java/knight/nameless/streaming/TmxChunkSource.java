@@ -0,0 +1,346 @@
+package knight.nameless.streaming;
+
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+import knight.nameless.physics.SolidTileMerger;
+
+
+/**
+ * Splits a Tiled map into chunks, both fixed size maps and infinite maps stored in chunks by Tiled. The tile sets
+ * are loaded like {@link TmxMapLoader} does, but the layers are only kept as compact chunk data, which the
+ * {@link MapStreamer} turns into tiles, structures and enemies when the camera gets near them. The whole document
+ * is parsed up front and every chunk is kept, so the memory used grows with the level size, a large level is
+ * streamed from its compiled {@link BinaryLevel} instead.
+ */
+public class TmxChunkSource implements ChunkSource {
+
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+    private final int chunkSize;
+    private final LongMap<MapChunk> chunks = new LongMap<>();
+    private final Array<String> tileLayerNames = new Array<>();
+    private final TiledMap tileSetMap;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int mapWidth;
+    private final int mapHeight;
+    private float pixelWidth;
+    private int solidTileCount;
+    private int coveredTileCount;
+    private int solidRectangleCount;
+
+    public TmxChunkSource(String fileName) {
+        this(fileName, DEFAULT_CHUNK_SIZE);
+    }
+
+    public TmxChunkSource(String fileName, int chunkSize) {
+
+        this.chunkSize = chunkSize;
+
+        //the loader only keeps the tile sets and the properties, the layers are split into chunks while parsing
+        tileSetMap = new ChunkingLoader().load(fileName);
+
+        var properties = tileSetMap.getProperties();
+
+        tileWidth = properties.get("tilewidth", Integer.class);
+        tileHeight = properties.get("tileheight", Integer.class);
+        mapWidth = properties.get("width", Integer.class);
+        mapHeight = properties.get("height", Integer.class);
+
+        //an infinite map can go further than its declared width
+        pixelWidth = Math.max(pixelWidth, mapWidth * tileWidth);
+
+        var solid = new boolean[chunkSize * chunkSize];
+
+        for (var chunk : chunks.values())
+            addSolidTiles(chunk, solid);
+    }
+
+    //the solid tiles are merged per chunk, so the pieces come and go with the chunk like the other structures
+    private void addSolidTiles(MapChunk chunk, boolean[] solid) {
+
+        int chunkSolidTileCount = 0;
+
+        for (int layer = 0; layer < chunk.getLayerCount(); layer++) {
+
+            int[] tiles = chunk.getTiles(layer);
+
+            if (tiles == null)
+                continue;
+
+            for (int i = 0; i < tiles.length; i++) {
+
+                if (tiles[i] == 0 || solid[i])
+                    continue;
+
+                if (SolidTileMerger.isSolid(getTile(MapChunk.getTileIdWithoutFlags(tiles[i])))) {
+
+                    solid[i] = true;
+                    chunkSolidTileCount++;
+                }
+            }
+        }
+
+        if (chunkSolidTileCount == 0)
+            return;
+
+        solidTileCount += chunkSolidTileCount;
+
+        float originX = chunk.chunkX * chunkSize * tileWidth;
+        float originY = chunk.chunkY * chunkSize * tileHeight;
+
+        //like GameWorld.loadMap, the tiles under the hand drawn collision shapes are left to them. The shapes were
+        //cut into one piece per chunk, and the chunk only has its own pieces before the tiles are merged
+        for (int i = 0; i < chunk.structures.size; i += 4) {
+
+            coveredTileCount += SolidTileMerger.clearCovered(solid, chunkSize, chunkSize, originX, originY, tileWidth,
+                tileHeight, chunk.structures.get(i), chunk.structures.get(i + 1), chunk.structures.get(i + 2),
+                chunk.structures.get(i + 3));
+        }
+
+        solidRectangleCount += SolidTileMerger.merge(solid, chunkSize, chunkSize, originX, originY, tileWidth, tileHeight,
+            chunk.structures);
+    }
+
+    public static long getKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    @Override
+    public int getTileLayerCount() {
+        return tileLayerNames.size;
+    }
+
+    @Override
+    public String getTileLayerName(int layer) {
+        return tileLayerNames.get(layer);
+    }
+
+    @Override
+    public TiledMapTile getTile(int tileId) {
+        return tileSetMap.getTileSets().getTile(tileId);
+    }
+
+    @Override
+    public MapChunk getChunk(int chunkX, int chunkY) {
+        return chunks.get(getKey(chunkX, chunkY));
+    }
+
+    public int getChunkCount() {
+        return chunks.size;
+    }
+
+    /** Adds all the chunks to the array, in no particular order. */
+    public void getChunks(Array<MapChunk> result) {
+
+        for (var chunk : chunks.values())
+            result.add(chunk);
+    }
+
+    /** The width of the map in tiles as declared in the file, an infinite map can have chunks outside of it. */
+    public int getMapWidth() {
+        return mapWidth;
+    }
+
+    public int getMapHeight() {
+        return mapHeight;
+    }
+
+    public int getSolidTileCount() {
+        return solidTileCount;
+    }
+
+    /** How many of the solid tiles were left out because a collision shape of the map covers them. */
+    public int getCoveredTileCount() {
+        return coveredTileCount;
+    }
+
+    /** How many structures the solid tiles were merged into, see {@link SolidTileMerger}. */
+    public int getSolidRectangleCount() {
+        return solidRectangleCount;
+    }
+
+    public TiledMapTileSets getTileSets() {
+        return tileSetMap.getTileSets();
+    }
+
+    @Override
+    public float getPixelWidth() {
+        return pixelWidth;
+    }
+
+    private MapChunk getOrCreateChunk(int chunkX, int chunkY) {
+
+        long key = getKey(chunkX, chunkY);
+        var chunk = chunks.get(key);
+
+        if (chunk == null) {
+
+            chunk = new MapChunk(chunkX, chunkY, chunkSize);
+            chunks.put(key, chunk);
+        }
+
+        return chunk;
+    }
+
+    @Override
+    public void dispose() {
+        tileSetMap.dispose();
+    }
+
+    private class ChunkingLoader extends TmxMapLoader {
+
+        @Override
+        protected void loadTileLayer(TiledMap map, MapLayers parentLayers, Element element) {
+
+            int layer = tileLayerNames.size;
+            tileLayerNames.add(element.getAttribute("name", ""));
+
+            var data = element.getChildByName("data");
+
+            if (data == null)
+                return;
+
+            int mapHeight = mapHeightInPixels / mapTileHeight;
+            var tiledChunks = data.getChildrenByName("chunk");
+
+            if (tiledChunks.isEmpty()) {
+
+                int width = element.getIntAttribute("width", 0);
+                int height = element.getIntAttribute("height", 0);
+
+                addTiles(layer, 0, 0, width, height, getTileIds(element, width, height), mapHeight);
+                return;
+            }
+
+            //the chunks of an infinite map are decoded one by one, wrapped like a layer so the loader can read them
+            for (var tiledChunk : tiledChunks) {
+
+                int width = tiledChunk.getIntAttribute("width");
+                int height = tiledChunk.getIntAttribute("height");
+
+                var wrapper = new Element("layer", null);
+                var chunkData = new Element("data", wrapper);
+
+                if (data.hasAttribute("encoding"))
+                    chunkData.setAttribute("encoding", data.getAttribute("encoding"));
+
+                if (data.hasAttribute("compression"))
+                    chunkData.setAttribute("compression", data.getAttribute("compression"));
+
+                chunkData.setText(tiledChunk.getText());
+                wrapper.addChild(chunkData);
+
+                int startColumn = tiledChunk.getIntAttribute("x");
+                int startRow = tiledChunk.getIntAttribute("y");
+
+                addTiles(layer, startColumn, startRow, width, height, getTileIds(wrapper, width, height), mapHeight);
+            }
+        }
+
+        @Override
+        protected void loadObjectGroup(TiledMap map, MapLayers parentLayers, Element element) {
+
+            var isEnemyLayer = element.getAttribute("name", "").equals("Enemies");
+
+            for (var object : element.getChildrenByName("object")) {
+
+                float x = object.getFloatAttribute("x", 0);
+                float y = object.getFloatAttribute("y", 0);
+                float width = object.getFloatAttribute("width", 0);
+                float height = object.getFloatAttribute("height", 0);
+
+                //points, polygons and other shapes without a size are not used by the game
+                if (width <= 0 || height <= 0)
+                    continue;
+
+                if (flipY)
+                    y = mapHeightInPixels - y - height;
+
+                if (isEnemyLayer) {
+
+                    int chunkX = (int) Math.floor(x / (chunkSize * mapTileWidth));
+                    int chunkY = (int) Math.floor(y / (chunkSize * mapTileHeight));
+
+                    getOrCreateChunk(chunkX, chunkY).addEnemySpawn(x, y, width, height);
+                }
+                else
+                    addStructure(x, y, width, height);
+            }
+        }
+
+        private void addStructure(float x, float y, float width, float height) {
+
+            float chunkPixelWidth = chunkSize * mapTileWidth;
+            float chunkPixelHeight = chunkSize * mapTileHeight;
+
+            int startChunkX = (int) Math.floor(x / chunkPixelWidth);
+            int endChunkX = (int) Math.floor((x + width) / chunkPixelWidth);
+            int startChunkY = (int) Math.floor(y / chunkPixelHeight);
+            int endChunkY = (int) Math.floor((y + height) / chunkPixelHeight);
+
+            //a structure over several chunks is cut in one piece per chunk, so each chunk can be loaded on its own
+            for (int chunkY = startChunkY; chunkY <= endChunkY; chunkY++) {
+                for (int chunkX = startChunkX; chunkX <= endChunkX; chunkX++) {
+
+                    float pieceX = Math.max(x, chunkX * chunkPixelWidth);
+                    float pieceY = Math.max(y, chunkY * chunkPixelHeight);
+                    float pieceWidth = Math.min(x + width, (chunkX + 1) * chunkPixelWidth) - pieceX;
+                    float pieceHeight = Math.min(y + height, (chunkY + 1) * chunkPixelHeight) - pieceY;
+
+                    if (pieceWidth > 0 && pieceHeight > 0)
+                        getOrCreateChunk(chunkX, chunkY).addStructure(pieceX, pieceY, pieceWidth, pieceHeight);
+                }
+            }
+
+            pixelWidth = Math.max(pixelWidth, x + width);
+        }
+
+        private void addTiles(int layer, int startColumn, int startRow, int width, int height, int[] tileIds,
+                              int mapHeight) {
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+
+                    int tileId = tileIds[y * width + x];
+
+                    if (tileId == 0)
+                        continue;
+
+                    int column = startColumn + x;
+                    //tiled counts the rows from the top, the world from the bottom
+                    int row = mapHeight - 1 - (startRow + y);
+
+                    int chunkX = Math.floorDiv(column, chunkSize);
+                    int chunkY = Math.floorDiv(row, chunkSize);
+
+                    getOrCreateChunk(chunkX, chunkY)
+                        .setTile(layer, column - chunkX * chunkSize, row - chunkY * chunkSize, tileId);
+
+                    pixelWidth = Math.max(pixelWidth, (column + 1) * mapTileWidth);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package knight.nameless.tuning;
+
+import knight.nameless.GameWorld;
+import knight.nameless.objects.GameObject;
+
+/** The movement constants of one copy of a {@link PlayerBatch}, the ones of the game by default. */
+public class MovementParameters {
+
+    public float gravity = GameObject.GRAVITY;
+    public float friction = GameObject.FRICTION;
+    //the acceleration the player runs with, GameObject.speed
+    public float speed = 50;
+    public float jumpSpeed = GameWorld.JUMP_SPEED;
+
+    public MovementParameters set(float gravity, float friction, float speed, float jumpSpeed) {
+
+        this.gravity = gravity;
+        this.friction = friction;
+        this.speed = speed;
+        this.jumpSpeed = jumpSpeed;
+
+        return this;
+    }
+}
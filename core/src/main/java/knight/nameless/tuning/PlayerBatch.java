@@ -0,0 +1,243 @@
+package knight.nameless.tuning;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+import knight.nameless.GameWorld;
+import knight.nameless.input.InputSnapshot;
+import knight.nameless.input.InputSource;
+import knight.nameless.objects.Player;
+import knight.nameless.physics.SpatialGrid;
+import knight.nameless.physics.StructureCollider;
+
+/**
+ * Steps many copies of the player physics in lock-step against the structures of one map, for trying movement
+ * constants over many runs at once instead of one {@link GameWorld} per run. Every copy has its own constants and
+ * its own input, the state of all of them is packed in arrays and the map is shared read only. Only the player
+ * and the structures are simulated, a copy with the constants of the game moves like the player of a world
+ * without enemies.
+ */
+public class PlayerBatch {
+
+    private final Array<Rectangle> structures;
+    private final SpatialGrid structureGrid = new SpatialGrid(64);
+    private final Array<InputSource> inputSources = new Array<>();
+    private int size;
+    private long stepCount;
+    private float[] positionX = new float[0];
+    private float[] positionY = new float[0];
+    private float[] velocityX = new float[0];
+    private float[] velocityY = new float[0];
+    private float[] stepStartX = new float[0];
+    private float[] stepStartY = new float[0];
+    private int[] buttons = new int[0];
+    private float[] gravity = new float[0];
+    private float[] friction = new float[0];
+    private float[] speed = new float[0];
+    private float[] jumpSpeed = new float[0];
+    //what every copy did since it was added
+    private float[] furthestX = new float[0];
+    private int[] jumpCount = new int[0];
+    private int[] fallCount = new int[0];
+    //the copies are collided one after the other, so they all share it
+    private final StructureCollider collider = new StructureCollider();
+
+    /** The structures are read, never changed, for example the collision bounds of a world that loaded the map. */
+    public PlayerBatch(Array<Rectangle> structures) {
+
+        this.structures = structures;
+        structureGrid.build(structures);
+    }
+
+    /** Adds a copy standing where the world places the player, and returns its index. */
+    public int add(MovementParameters parameters, InputSource inputSource) {
+
+        if (positionX.length == size)
+            resize(Math.max(16, size * 2));
+
+        int copy = size++;
+
+        positionX[copy] = Player.SPAWN_X;
+        positionY[copy] = Player.SPAWN_Y;
+        velocityX[copy] = 0;
+        velocityY[copy] = 0;
+        buttons[copy] = 0;
+        gravity[copy] = parameters.gravity;
+        friction[copy] = parameters.friction;
+        speed[copy] = parameters.speed;
+        jumpSpeed[copy] = parameters.jumpSpeed;
+        furthestX[copy] = Player.SPAWN_X;
+        jumpCount[copy] = 0;
+        fallCount[copy] = 0;
+
+        inputSources.add(inputSource);
+
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Removes every copy, the map stays for the next ones. */
+    public void clear() {
+
+        size = 0;
+        stepCount = 0;
+        inputSources.clear();
+    }
+
+    /** Steps every copy once, with the input its source gives for this step. */
+    public void step(float deltaTime) {
+
+        for (int i = 0; i < size; i++)
+            buttons[i] = inputSources.get(i).poll();
+
+        integrate(deltaTime);
+
+        for (int i = 0; i < size; i++)
+            collide(i, deltaTime);
+
+        stepCount += size;
+    }
+
+    //the same steps as Player.childUpdate, GameObject.integrate and Player.afterIntegration, the headless runner
+    //checks them against a world with --check-batch
+    private void integrate(float deltaTime) {
+
+        for (int i = 0; i < size; i++) {
+
+            float accelerationX = 0;
+
+            if ((buttons[i] & InputSnapshot.RIGHT) != 0)
+                accelerationX = speed[i];
+
+            else if ((buttons[i] & InputSnapshot.LEFT) != 0)
+                accelerationX = -speed[i];
+
+            stepStartX[i] = positionX[i];
+            stepStartY[i] = positionY[i];
+
+            velocityY[i] -= gravity[i] * deltaTime;
+
+            positionY[i] += velocityY[i];
+            positionX[i] += velocityX[i];
+
+            velocityX[i] += accelerationX * deltaTime;
+            velocityX[i] *= friction[i];
+
+            if (positionY[i] < 0) {
+
+                positionX[i] = Player.RESPAWN_X;
+                positionY[i] = Player.RESPAWN_TOP - Player.SIZE;
+                velocityY[i] = 0;
+                stepStartX[i] = positionX[i];
+                stepStartY[i] = positionY[i];
+                fallCount[i]++;
+            }
+        }
+    }
+
+    private void collide(int copy, float deltaTime) {
+
+        var bounds = collider.bounds;
+        boolean isJumping = (buttons[copy] & InputSnapshot.JUMP) != 0;
+
+        bounds.set(positionX[copy], positionY[copy], Player.SIZE, Player.SIZE);
+        collider.velocityX = velocityX[copy];
+        collider.velocityY = velocityY[copy];
+        collider.landingVelocityY = isJumping ? jumpSpeed[copy] * deltaTime : 0;
+
+        collider.sweep(structures, structureGrid, stepStartX[copy], stepStartY[copy]);
+
+        positionX[copy] = bounds.x;
+        positionY[copy] = bounds.y;
+        velocityX[copy] = collider.velocityX;
+        velocityY[copy] = collider.velocityY;
+        furthestX[copy] = Math.max(furthestX[copy], bounds.x);
+
+        if (isJumping)
+            jumpCount[copy] += collider.landingCount;
+    }
+
+    /** How many copies were stepped since the batch was cleared, one per copy and step. */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public float getPositionX(int copy) {
+        return positionX[copy];
+    }
+
+    public float getPositionY(int copy) {
+        return positionY[copy];
+    }
+
+    public float getVelocityX(int copy) {
+        return velocityX[copy];
+    }
+
+    public float getVelocityY(int copy) {
+        return velocityY[copy];
+    }
+
+    /** The {@link GameWorld#getStateHash()} of a world whose only object is a player in the state of the copy. */
+    public long getStateHash(int copy) {
+
+        long hash = 17;
+
+        hash = hash * 31 + Float.floatToIntBits(positionX[copy]);
+        hash = hash * 31 + Float.floatToIntBits(positionY[copy]);
+        hash = hash * 31 + Float.floatToIntBits(velocityX[copy]);
+        hash = hash * 31 + Float.floatToIntBits(velocityY[copy]);
+
+        return hash;
+    }
+
+    /** The furthest to the right the copy got. */
+    public float getFurthestX(int copy) {
+        return furthestX[copy];
+    }
+
+    /** How many times the copy jumped off the ground. */
+    public int getJumpCount(int copy) {
+        return jumpCount[copy];
+    }
+
+    /** How many times the copy fell off the map and came back at the respawn point. */
+    public int getFallCount(int copy) {
+        return fallCount[copy];
+    }
+
+    private void resize(int capacity) {
+
+        positionX = copyOf(positionX, capacity);
+        positionY = copyOf(positionY, capacity);
+        velocityX = copyOf(velocityX, capacity);
+        velocityY = copyOf(velocityY, capacity);
+        stepStartX = copyOf(stepStartX, capacity);
+        stepStartY = copyOf(stepStartY, capacity);
+        buttons = copyOf(buttons, capacity);
+        gravity = copyOf(gravity, capacity);
+        friction = copyOf(friction, capacity);
+        speed = copyOf(speed, capacity);
+        jumpSpeed = copyOf(jumpSpeed, capacity);
+        furthestX = copyOf(furthestX, capacity);
+        jumpCount = copyOf(jumpCount, capacity);
+        fallCount = copyOf(fallCount, capacity);
+    }
+
+    private float[] copyOf(float[] values, int capacity) {
+
+        var copy = new float[capacity];
+        System.arraycopy(values, 0, copy, 0, values.length);
+        return copy;
+    }
+
+    private int[] copyOf(int[] values, int capacity) {
+
+        var copy = new int[capacity];
+        System.arraycopy(values, 0, copy, 0, values.length);
+        return copy;
+    }
+}
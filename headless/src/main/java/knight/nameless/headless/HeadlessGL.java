@@ -0,0 +1,41 @@
+package knight.nameless.headless;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/** Installs a GL20 that does nothing, so textures, atlases and maps can be loaded without a window or a GPU. */
+public final class HeadlessGL {
+
+    private HeadlessGL() {
+    }
+
+    public static void install() {
+
+        GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class}, HeadlessGL::invoke);
+
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+    }
+
+    private static Object invoke(Object proxy, Method method, Object[] args) {
+
+        Class<?> returnType = method.getReturnType();
+
+        if (returnType == int.class)
+            return 0;
+
+        if (returnType == boolean.class)
+            return false;
+
+        if (returnType == float.class)
+            return 0f;
+
+        if (returnType == String.class)
+            return "";
+
+        return null;
+    }
+}
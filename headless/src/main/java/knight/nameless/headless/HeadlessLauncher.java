@@ -0,0 +1,81 @@
+package knight.nameless.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.MappedLevelReader;
+
+/** Runs the game world on the headless backend, without a window, and reports how fast it can be simulated. */
+public class HeadlessLauncher {
+    public static void main(String[] args) {
+
+        var simulation = new SimulationConfiguration();
+
+        for (int i = 0; i < args.length; i++) {
+
+            switch (args[i]) {
+
+                case "--frames":
+                    simulation.frames = Integer.parseInt(args[++i]);
+                    break;
+
+                case "--map":
+                    simulation.mapPath = args[++i];
+                    break;
+
+                case "--check-allocations":
+                    simulation.checkAllocations = true;
+                    break;
+
+                case "--threads":
+                    simulation.threads = Integer.parseInt(args[++i]);
+                    break;
+
+                case "--enemies":
+                    simulation.enemies = Integer.parseInt(args[++i]);
+                    break;
+
+                case "--follow-view":
+                    simulation.followView = true;
+                    break;
+
+                case "--stream":
+                    simulation.streamMap = true;
+                    simulation.followView = true;
+                    break;
+
+                case "--profile":
+                    simulation.profileFile = args[++i];
+                    break;
+
+                case "--replay":
+                    simulation.replayFile = args[++i];
+                    break;
+
+                case "--rewind":
+                    simulation.rewind = true;
+                    break;
+
+                case "--check-batch":
+                    simulation.checkPlayerBatch = true;
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        //the compiled levels are mapped from their files, like the desktop game does
+        LevelFiles.setLevelReader(new MappedLevelReader());
+
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        //the runner steps all the frames in a single render call, using the fixed time step instead of the clock
+        configuration.updatesPerSecond = 0;
+
+        if (simulation.checkPlayerBatch)
+            new HeadlessApplication(new PlayerBatchCheck(simulation), configuration);
+        else
+            new HeadlessApplication(new SimulationRunner(simulation), configuration);
+    }
+}
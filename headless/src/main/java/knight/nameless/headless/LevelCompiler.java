@@ -0,0 +1,228 @@
+package knight.nameless.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.glutils.FileTextureData;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import knight.nameless.streaming.BinaryLevel;
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.MapChunk;
+import knight.nameless.streaming.TmxChunkSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compiles every .tmx map under a folder of the assets into a {@link BinaryLevel} written next to it, so the game
+ * can load its levels without parsing XML. Run by the compileLevels task before the desktop build.
+ */
+public class LevelCompiler extends ApplicationAdapter {
+
+    private static final String TAG = "LevelCompiler";
+    private final String mapsFolder;
+
+    public LevelCompiler(String mapsFolder) {
+        this.mapsFolder = mapsFolder;
+    }
+
+    public static void main(String[] args) {
+
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        configuration.updatesPerSecond = 0;
+
+        new HeadlessApplication(new LevelCompiler(args.length > 0 ? args[0] : "maps"), configuration);
+    }
+
+    @Override
+    public void create() {
+
+        //the tile sets are loaded as textures to find their images, it needs a gl context
+        HeadlessGL.install();
+
+        compileFolder(Gdx.files.internal(mapsFolder));
+        Gdx.app.exit();
+    }
+
+    private void compileFolder(FileHandle folder) {
+
+        for (var file : folder.list()) {
+
+            if (file.isDirectory())
+                compileFolder(file);
+            else if (file.extension().equals("tmx"))
+                compileMap(file.path());
+        }
+    }
+
+    private void compileMap(String mapPath) {
+
+        var chunkSource = new TmxChunkSource(mapPath);
+        var bytes = compile(chunkSource, LevelFiles.hashSources(Gdx.files.internal(mapPath)));
+        int solidTileCount = chunkSource.getSolidTileCount();
+        int coveredTileCount = chunkSource.getCoveredTileCount();
+        int solidRectangleCount = chunkSource.getSolidRectangleCount();
+        chunkSource.dispose();
+
+        var levelFile = Gdx.files.local(LevelFiles.getLevelPath(mapPath));
+        levelFile.writeBytes(bytes, false);
+
+        Gdx.app.log(TAG, String.format("%s -> %s (%d bytes, %d solid tiles, %d left to the collision shapes, the "
+            + "rest merged into %d structures)", mapPath, levelFile.path(), bytes.length, solidTileCount, coveredTileCount,
+            solidRectangleCount));
+    }
+
+    /** The source hash lets the game notice a map edited after it was compiled, see {@link LevelFiles}. */
+    public static byte[] compile(TmxChunkSource chunkSource, long sourceHash) {
+
+        var chunks = new Array<MapChunk>();
+        chunkSource.getChunks(chunks);
+
+        //the directory is sorted so the level can binary search it
+        chunks.sort((first, second) -> first.chunkX != second.chunkX
+            ? Integer.compare(first.chunkX, second.chunkX)
+            : Integer.compare(first.chunkY, second.chunkY));
+
+        var bytes = new ByteArrayOutputStream();
+
+        try (var output = new DataOutputStream(bytes)) {
+
+            output.writeInt(BinaryLevel.MAGIC);
+            output.writeInt(BinaryLevel.VERSION);
+            output.writeLong(sourceHash);
+            output.writeInt(chunkSource.getTileWidth());
+            output.writeInt(chunkSource.getTileHeight());
+            output.writeInt(chunkSource.getMapWidth());
+            output.writeInt(chunkSource.getMapHeight());
+            output.writeInt(chunkSource.getChunkSize());
+            output.writeFloat(chunkSource.getPixelWidth());
+
+            var tileSets = new Array<TiledMapTileSet>();
+
+            for (var tileSet : chunkSource.getTileSets())
+                tileSets.add(tileSet);
+
+            output.writeInt(tileSets.size);
+
+            for (var tileSet : tileSets)
+                writeTileSet(output, tileSet);
+
+            output.writeInt(chunkSource.getTileLayerCount());
+
+            for (int layer = 0; layer < chunkSource.getTileLayerCount(); layer++)
+                writeString(output, chunkSource.getTileLayerName(layer));
+
+            output.writeInt(chunks.size);
+
+            //every entry has the chunk position and the offset of its record
+            int headerSize = output.size();
+            int offset = headerSize + chunks.size * 12;
+
+            for (var chunk : chunks) {
+
+                output.writeInt(chunk.chunkX);
+                output.writeInt(chunk.chunkY);
+                output.writeInt(offset);
+
+                offset += getChunkRecordSize(chunk, chunkSource.getTileLayerCount());
+            }
+
+            for (var chunk : chunks)
+                writeChunk(output, chunk, chunkSource.getTileLayerCount());
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't compile the level", exception);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static void writeTileSet(DataOutputStream output, TiledMapTileSet tileSet) throws IOException {
+
+        var properties = tileSet.getProperties();
+        var iterator = tileSet.iterator();
+
+        if (!iterator.hasNext())
+            throw new GdxRuntimeException("The tile set " + tileSet.getName() + " has no tiles");
+
+        var textureData = iterator.next().getTextureRegion().getTexture().getTextureData();
+
+        if (!(textureData instanceof FileTextureData))
+            throw new GdxRuntimeException("The tile set " + tileSet.getName() + " is not a single image");
+
+        writeString(output, tileSet.getName());
+        output.writeInt(properties.get("firstgid", Integer.class));
+        output.writeInt(properties.get("tilewidth", Integer.class));
+        output.writeInt(properties.get("tileheight", Integer.class));
+        output.writeInt(properties.get("margin", Integer.class));
+        output.writeInt(properties.get("spacing", Integer.class));
+        writeString(output, normalizePath(((FileTextureData) textureData).getFileHandle().path()));
+    }
+
+    //the tile set images are referenced relative to the .tsx files, like maps/playground/tileset/../img
+    private static String normalizePath(String path) {
+
+        var parts = new Array<String>();
+
+        for (var part : path.replace('\\', '/').split("/")) {
+
+            if (part.equals(".."))
+                parts.pop();
+            else if (!part.isEmpty() && !part.equals("."))
+                parts.add(part);
+        }
+
+        return parts.toString("/");
+    }
+
+    private static int getChunkRecordSize(MapChunk chunk, int layerCount) {
+
+        int size = 0;
+        int tileBytes = chunk.getChunkSize() * chunk.getChunkSize() * 4;
+
+        for (int layer = 0; layer < layerCount; layer++)
+            size += 1 + (chunk.getTiles(layer) != null ? tileBytes : 0);
+
+        return size + 4 + chunk.structures.size * 4 + 4 + chunk.enemySpawns.size * 4;
+    }
+
+    private static void writeChunk(DataOutputStream output, MapChunk chunk, int layerCount) throws IOException {
+
+        for (int layer = 0; layer < layerCount; layer++) {
+
+            int[] tiles = chunk.getTiles(layer);
+            output.writeBoolean(tiles != null);
+
+            if (tiles == null)
+                continue;
+
+            for (int tileId : tiles)
+                output.writeInt(tileId);
+        }
+
+        output.writeInt(chunk.structures.size / 4);
+
+        for (int i = 0; i < chunk.structures.size; i++)
+            output.writeFloat(chunk.structures.get(i));
+
+        output.writeInt(chunk.enemySpawns.size / 4);
+
+        for (int i = 0; i < chunk.enemySpawns.size; i++)
+            output.writeFloat(chunk.enemySpawns.get(i));
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
@@ -0,0 +1,92 @@
+package knight.nameless.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.input.InputReplay;
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.tuning.MovementParameters;
+import knight.nameless.tuning.PlayerBatch;
+
+/**
+ * Checks that a {@link PlayerBatch} copy with the constants of the game moves like the player of a world without
+ * enemies. Both are fed the same recorded input, and their state hashes are compared after every step, so a change
+ * to the player physics that is not made to the batch too fails the run on the first step it makes a difference.
+ */
+public class PlayerBatchCheck extends ApplicationAdapter {
+
+    private static final String TAG = "PlayerBatchCheck";
+    private final SimulationConfiguration configuration;
+
+    public PlayerBatchCheck(SimulationConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void create() {
+
+        if (configuration.replayFile == null)
+            throw new IllegalArgumentException("--check-batch needs the input of a session to play, give it --replay");
+
+        HeadlessGL.install();
+
+        var sprites = new SpriteRegistry(new TextureAtlas("images/sprites.atlas"));
+        var inputReplay = InputReplay.read(new FileHandle(configuration.replayFile));
+
+        var tiledMap = LevelFiles.loadMap(configuration.mapPath);
+        var enemyLayer = tiledMap.getLayers().get("Enemies");
+
+        if (enemyLayer != null)
+            tiledMap.getLayers().remove(enemyLayer);
+
+        var world = new GameWorld(sprites);
+        world.loadMap(tiledMap);
+
+        var batch = new PlayerBatch(world.getCollisionBounds());
+        batch.add(new MovementParameters(), inputReplay.copy());
+
+        int divergedStep = -1;
+
+        //the rewind and level buttons of the recording are not played, both stay on the map they started on
+        for (int step = 0; step < inputReplay.getFrameCount(); step++) {
+
+            world.update(Platform.TIME_STEP, inputReplay.poll());
+            batch.step(Platform.TIME_STEP);
+
+            if (world.getStateHash() != batch.getStateHash(0)) {
+
+                divergedStep = step;
+                break;
+            }
+        }
+
+        var player = world.getPlayer();
+
+        if (divergedStep == -1) {
+
+            Gdx.app.log(TAG, String.format("The batch moved like the player over the %d steps of %s on %s, %d jumps "
+                    + "and %d falls", inputReplay.getFrameCount(), configuration.replayFile, configuration.mapPath,
+                batch.getJumpCount(0), batch.getFallCount(0)));
+        }
+        else {
+
+            Gdx.app.error(TAG, String.format("The batch left the player at step %d: player at %s with velocity %s, "
+                    + "batch at (%s,%s) with velocity (%s,%s)", divergedStep, player.bounds, player.velocity,
+                batch.getPositionX(0), batch.getPositionY(0), batch.getVelocityX(0), batch.getVelocityY(0)));
+        }
+
+        world.dispose();
+        tiledMap.dispose();
+        sprites.dispose();
+
+        if (divergedStep != -1)
+            System.exit(1);
+
+        Gdx.app.exit();
+    }
+}
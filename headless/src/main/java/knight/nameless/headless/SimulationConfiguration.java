@@ -0,0 +1,25 @@
+package knight.nameless.headless;
+
+/** What the {@link SimulationRunner} runs and measures, filled from the command line by {@link HeadlessLauncher}. */
+public class SimulationConfiguration {
+
+    public int frames = 36_000;
+    public String mapPath = "maps/playground/test3.tmx";
+    /** Fails the run if the simulation allocates in steady state. */
+    public boolean checkAllocations = false;
+    public int threads = 1;
+    /** Keeps this many enemies alive, spawned apart on the structures of the map, as many as fit on a small map. */
+    public int enemies = 0;
+    /** Keys the activity regions of the world off a view that follows the player, like the game camera. */
+    public boolean followView = false;
+    /** Loads the map by chunks around the view instead of all at once, it implies {@link #followView}. */
+    public boolean streamMap = false;
+    /** Times the update and collision phases and writes the reports to this file, as CSV or JSON lines. */
+    public String profileFile = null;
+    /** Feeds the player the input recorded in this file, the run then lasts as many frames as the recording. */
+    public String replayFile = null;
+    /** Snapshots the world into a rewind buffer every frame, and checks at the end that rewinding is exact. */
+    public boolean rewind = false;
+    /** Replays the input through a player batch and a world without enemies instead, and checks they move alike. */
+    public boolean checkPlayerBatch = false;
+}
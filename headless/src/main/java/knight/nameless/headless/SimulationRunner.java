@@ -0,0 +1,496 @@
+package knight.nameless.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import knight.nameless.ForkJoinUpdateExecutor;
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.UpdateExecutor;
+import knight.nameless.VisibleSet;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.input.InputReplay;
+import knight.nameless.input.InputSnapshot;
+import knight.nameless.profiling.BackgroundProfileExporter;
+import knight.nameless.snapshot.RewindBuffer;
+import knight.nameless.profiling.FrameProfiler;
+import knight.nameless.profiling.FrameProfiler.Phase;
+import knight.nameless.streaming.ChunkSource;
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.MapStreamer;
+import knight.nameless.streaming.TmxChunkSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/** Steps a {@link GameWorld} a fixed number of frames as fast as possible and logs the simulated frame rate. */
+public class SimulationRunner extends ApplicationAdapter {
+
+    private static final String TAG = "Simulation";
+    //enough frames for the JIT to compile the update path before anything is measured
+    private static final int WARMUP_FRAMES = 100_000;
+    //a replay goes through branches the compiler only sees once per session, so it is played a few times first
+    private static final int REPLAY_WARMUP_PASSES = 4;
+    private int frames;
+    private final String mapPath;
+    //the map played now, a run walks through the levels of the game like a played session does
+    private String levelPath;
+    //the buttons of the last step, holding N switches only once
+    private int previousButtons;
+    private int levelSwitchCount;
+    //the place the next enemy kept alive is spawned at, they go along the tops of the structures in order
+    private int enemySpawnIndex;
+    private static final float ENEMY_SIZE = 32;
+    private static final float ENEMY_SPAWN_SPACING = 48;
+    //loading a level is not part of a step, so what it allocates is left out of the check
+    private long levelLoadBytes;
+    //what reading the counter allocates itself, so it is not reported as allocations of the world
+    private long counterOverhead;
+    private final SimulationConfiguration configuration;
+    //the size of the view of the game, centered on the player like its camera when the activity follows the view
+    private static final float VIEW_WIDTH = 640;
+    private static final float VIEW_HEIGHT = 360;
+    private static final long MAP_MEMORY_BUDGET = 8 * 1024 * 1024;
+    private UpdateExecutor updateExecutor;
+    //kept across the worlds loaded by the run, like the atlas it replaces
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private GameWorld world;
+    private ChunkSource chunkSource;
+    private MapStreamer mapStreamer;
+    //what a window following the player would draw, computed on every frame when the view is followed
+    private final VisibleSet visibleSet = new VisibleSet();
+    private FrameProfiler profiler;
+    //the recorded input of a play session, the run then lasts as many frames as the recording
+    private InputReplay inputReplay;
+    private static final Phase[] LOGGED_PHASES = {
+        Phase.ENTITY_UPDATE, Phase.STRUCTURE_COLLISION, Phase.ENTITY_COLLISION, Phase.SNAPSHOT, Phase.CULLING
+    };
+    private static final int REWIND_STEPS = 600;
+    private RewindBuffer rewindBuffer;
+    private BackgroundProfileExporter profileExporter;
+    private com.sun.management.ThreadMXBean threadBean;
+    private long[] threadIds;
+    private boolean isFinished;
+    private int exitCode;
+
+    public SimulationRunner(SimulationConfiguration configuration) {
+
+        this.configuration = configuration;
+        frames = configuration.frames;
+        mapPath = configuration.mapPath;
+        levelPath = mapPath;
+    }
+
+    @Override
+    public void create() {
+
+        HeadlessGL.install();
+
+        sprites = new SpriteRegistry(new TextureAtlas("images/sprites.atlas"));
+
+        int threads = configuration.threads;
+        updateExecutor = threads > 1 ? new ForkJoinUpdateExecutor(threads) : UpdateExecutor.SERIAL;
+
+        if (configuration.profileFile != null) {
+
+            profiler = new FrameProfiler();
+            profileExporter = new BackgroundProfileExporter(new FileHandle(configuration.profileFile));
+            profiler.setExporter(profileExporter);
+        }
+
+        if (configuration.replayFile != null) {
+
+            inputReplay = InputReplay.read(new FileHandle(configuration.replayFile));
+            frames = inputReplay.getFrameCount();
+
+            Gdx.app.log(TAG, String.format("Replaying %d recorded frames from %s", frames, configuration.replayFile));
+        }
+
+        long startTime = TimeUtils.nanoTime();
+
+        loadWorld();
+
+        Gdx.app.log(TAG, String.format("Map loaded in %.1f ms", (TimeUtils.nanoTime() - startTime) / 1_000_000.0));
+
+        //a compiled level already has its solid tiles merged into structures
+        if (chunkSource instanceof TmxChunkSource) {
+
+            var tmxChunkSource = (TmxChunkSource) chunkSource;
+            logSolidTiles(tmxChunkSource.getSolidTileCount(), tmxChunkSource.getCoveredTileCount(),
+                tmxChunkSource.getSolidRectangleCount());
+        }
+        else if (tiledMap != null)
+            logSolidTiles(world.getSolidTileCount(), world.getCoveredTileCount(), world.getSolidRectangleCount());
+
+        //a session that was rewound is only replayed exactly with a buffer of the same size as the game
+        boolean isReplayRewound = inputReplay != null && inputReplay.hasButton(InputSnapshot.REWIND);
+
+        if (configuration.rewind || isReplayRewound && mapStreamer == null)
+            rewindBuffer = new RewindBuffer(REWIND_STEPS, Math.max(64, world.getGameObjects().size * 2));
+
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    private void loadWorld() {
+
+        world = new GameWorld(sprites);
+        world.setUpdateExecutor(updateExecutor);
+        world.setProfiler(profiler);
+
+        if (configuration.followView)
+            world.setActivityView(VIEW_WIDTH, VIEW_HEIGHT);
+
+        if (configuration.streamMap) {
+
+            chunkSource = LevelFiles.openChunkSource(levelPath);
+            mapStreamer = new MapStreamer(chunkSource, world, MAP_MEMORY_BUDGET);
+        }
+        else {
+
+            tiledMap = LevelFiles.loadMap(levelPath);
+            world.loadMap(tiledMap);
+        }
+
+        //the pool makes the enemies of the level here, the steps only reuse the ones that despawned
+        world.ensureObjectCapacity(world.getGameObjects().size + configuration.enemies);
+        enemySpawnIndex = 0;
+        keepEnemiesAlive();
+    }
+
+    private void keepEnemiesAlive() {
+
+        var enemyPool = world.getEnemyPool();
+
+        if (enemyPool.getLiveCount() >= configuration.enemies)
+            return;
+
+        var structures = world.getCollisionBounds();
+        int spawnSlotCount = 0;
+
+        for (int i = 0; i < structures.size; i++)
+            spawnSlotCount += getSpawnSlotCount(structures.get(i));
+
+        //a small map keeps fewer enemies alive, piled up on a few structures they would all touch each other
+        int enemyCount = Math.min(configuration.enemies, spawnSlotCount);
+
+        while (enemyPool.getLiveCount() < enemyCount) {
+
+            int slot = enemySpawnIndex % spawnSlotCount;
+            int structureIndex = 0;
+
+            while (slot >= getSpawnSlotCount(structures.get(structureIndex)))
+                slot -= getSpawnSlotCount(structures.get(structureIndex++));
+
+            var structure = structures.get(structureIndex);
+
+            world.spawnEnemy(structure.x + slot * ENEMY_SPAWN_SPACING, structure.y + structure.height,
+                ENEMY_SIZE, ENEMY_SIZE);
+            enemySpawnIndex++;
+        }
+    }
+
+    //the places on top of the structure an enemy spawns at without touching the ones next to it
+    private int getSpawnSlotCount(Rectangle structure) {
+        return structure.width < ENEMY_SIZE ? 0 : (int) ((structure.width - ENEMY_SIZE) / ENEMY_SPAWN_SPACING) + 1;
+    }
+
+    private void unloadWorld() {
+
+        if (tiledMap != null)
+            tiledMap.dispose();
+
+        if (chunkSource != null)
+            chunkSource.dispose();
+
+        world.dispose();
+    }
+
+    private void restartReplay() {
+
+        unloadWorld();
+        levelPath = mapPath;
+        previousButtons = 0;
+        loadWorld();
+        inputReplay.rewind();
+
+        if (rewindBuffer != null)
+            rewindBuffer.clear();
+    }
+
+    //the next level of the game, or its first level after a map the game does not play
+    private void switchLevel() {
+
+        long allocatedBefore = threadIds != null ? getAllocatedBytes() : 0;
+
+        var levelPaths = Platform.LEVEL_PATHS;
+        int levelIndex = Arrays.asList(levelPaths).indexOf(levelPath);
+
+        levelPath = levelPaths[(levelIndex + 1) % levelPaths.length];
+
+        unloadWorld();
+        loadWorld();
+
+        if (rewindBuffer != null)
+            rewindBuffer.clear();
+
+        levelSwitchCount++;
+
+        //the two reads leave one array of the counter to the steps
+        if (threadIds != null)
+            levelLoadBytes += getAllocatedBytes() - allocatedBefore + counterOverhead;
+    }
+
+    private void logSolidTiles(int tileCount, int coveredCount, int rectangleCount) {
+
+        if (tileCount == 0)
+            return;
+
+        Gdx.app.log(TAG, String.format("%d solid tiles, %d left to the collision shapes of the map, the rest merged "
+            + "into %d structures", tileCount, coveredCount, rectangleCount));
+    }
+
+    @Override
+    public void render() {
+
+        //exiting only takes effect after the current frame, so later render calls have nothing to do
+        if (isFinished)
+            return;
+
+        int warmupFrames = inputReplay != null ? Math.max(WARMUP_FRAMES, frames * REPLAY_WARMUP_PASSES) : WARMUP_FRAMES;
+
+        //one frame per call, so the measured loop below runs compiled instead of being entered on stack replacement
+        for (int i = 0; i < warmupFrames; i++) {
+
+            if (inputReplay != null && inputReplay.isFinished())
+                restartReplay();
+
+            stepFrames(1);
+        }
+
+        //a replay has to start from the beginning of the level, so the warmed up world is loaded again
+        if (inputReplay != null)
+            restartReplay();
+
+        //the worker threads of the executor are started by the warmup, every live thread is counted
+        threadIds = threadBean.getAllThreadIds();
+
+        //the first reads of the counter allocate on their own, so they are done before the measurement
+        getAllocatedBytes();
+        getAllocatedBytes();
+
+        long counterBefore = getAllocatedBytes();
+        counterOverhead = getAllocatedBytes() - counterBefore;
+
+        levelSwitchCount = 0;
+        levelLoadBytes = 0;
+
+        long allocatedBefore = getAllocatedBytes();
+        long startTime = TimeUtils.nanoTime();
+
+        stepFrames(frames);
+
+        long elapsedTime = TimeUtils.nanoTime() - startTime;
+        long allocatedAfter = getAllocatedBytes();
+        long allocatedBytes = Math.max(0, allocatedAfter - allocatedBefore - counterOverhead - levelLoadBytes);
+
+        double seconds = elapsedTime / 1_000_000_000.0;
+        double framesPerSecond = frames / seconds;
+
+        Gdx.app.log(TAG, String.format("%d frames of %s in %.3f s on %d thread(s)",
+            frames, mapPath, seconds, configuration.threads));
+        Gdx.app.log(TAG, String.format("%.0f simulated frames per second, %.1fx realtime",
+            framesPerSecond, framesPerSecond * Platform.TIME_STEP));
+
+        if (levelSwitchCount > 0)
+            Gdx.app.log(TAG, String.format("Switched levels %d times, ending on %s", levelSwitchCount, levelPath));
+
+        //the same replay ends in the same state on every run, whatever the number of threads
+        Gdx.app.log(TAG, String.format("State hash after the last frame: %016x", world.getStateHash()));
+
+        var enemyPool = world.getEnemyPool();
+
+        Gdx.app.log(TAG, String.format("%d live and %d pooled enemies, at most %d alive at once and %d ever made",
+            enemyPool.getLiveCount(), enemyPool.getFreeCount(), enemyPool.getPeakLiveCount(),
+            enemyPool.getCreatedCount()));
+        Gdx.app.log(TAG, String.format("%d stomps, %d player hits and %d enemy contacts", world.getStompCount(),
+            world.getPlayerHitCount(), world.getEnemyContactCount()));
+
+        for (var regionName : sprites.getRegionNames()) {
+
+            Gdx.app.log(TAG, String.format("%s frames shared by %d objects over the run, about %d bytes saved",
+                regionName, sprites.getUserCount(regionName), sprites.getSavedBytes(regionName)));
+        }
+
+        if (configuration.followView) {
+
+            Gdx.app.log(TAG, String.format("%d active, %d throttled and %d sleeping objects at the end",
+                world.getActiveCount(), world.getThrottledCount(), world.getSleepingCount()));
+            Gdx.app.log(TAG, String.format("%d objects drawn and %d culled, %d structures drawn and %d culled",
+                visibleSet.getDrawnObjectCount(), visibleSet.getCulledObjectCount(),
+                visibleSet.getDrawnStructureCount(), visibleSet.getCulledStructureCount()));
+        }
+
+        if (mapStreamer != null) {
+
+            Gdx.app.log(TAG, String.format("%d chunks loaded, about %d KB, after %d loads and %d unloads",
+                mapStreamer.getLoadedChunkCount(), mapStreamer.getLoadedBytes() / 1024, mapStreamer.getLoadCount(),
+                mapStreamer.getUnloadCount()));
+        }
+
+        if (profiler != null) {
+
+            profiler.finishReport();
+
+            for (var phase : LOGGED_PHASES) {
+
+                var histogram = profiler.getReportHistogram(phase);
+
+                Gdx.app.log(TAG, String.format("%s per frame: p50 %.1f us, p99 %.1f us, max %.1f us", phase.label,
+                    histogram.getPercentile(50) / 1000f, histogram.getPercentile(99) / 1000f,
+                    histogram.getMax() / 1000f));
+            }
+        }
+
+        if (configuration.checkAllocations) {
+
+            double bytesPerFrame = (double) allocatedBytes / frames;
+
+            Gdx.app.log(TAG, String.format("%d bytes allocated, %.3f bytes per frame", allocatedBytes, bytesPerFrame));
+
+            //the world is warmed up, so any allocation left is one the simulation step makes
+            if (allocatedBytes > 0) {
+
+                Gdx.app.error(TAG, "The simulation step allocated memory in steady state");
+                exitCode = 1;
+            }
+        }
+
+        //steps more frames, so it comes after everything that was measured
+        if (rewindBuffer != null)
+            checkRewind();
+
+        isFinished = true;
+        Gdx.app.exit();
+    }
+
+    private void stepFrames(int total) {
+
+        for (int i = 0; i < total; i++) {
+
+            if (mapStreamer != null)
+                mapStreamer.update(getViewX(), 0, VIEW_WIDTH, VIEW_HEIGHT);
+
+            int buttons = inputReplay != null ? inputReplay.poll() : 0;
+
+            //the same steps as Platform.updateFixedSteps, so a recorded session is replayed exactly
+            if (rewindBuffer != null && (buttons & InputSnapshot.REWIND) != 0)
+                rewindBuffer.rewind(world, 1);
+
+            else {
+
+                world.update(Platform.TIME_STEP, buttons);
+
+                if (rewindBuffer != null) {
+
+                    if (profiler != null)
+                        profiler.begin(Phase.SNAPSHOT);
+
+                    rewindBuffer.record(world);
+
+                    if (profiler != null)
+                        profiler.end(Phase.SNAPSHOT);
+                }
+            }
+
+            if (configuration.enemies > 0)
+                keepEnemiesAlive();
+
+            boolean isNextLevelPressed = (buttons & ~previousButtons & InputSnapshot.NEXT_LEVEL) != 0;
+
+            previousButtons = buttons;
+
+            //the game does not switch levels on a streamed map
+            if (mapStreamer == null && (isNextLevelPressed || world.isPlayerPastMapEnd()))
+                switchLevel();
+
+            if (configuration.followView) {
+
+                if (profiler != null)
+                    profiler.begin(Phase.CULLING);
+
+                world.computeVisibleSet(getViewX(), 0, VIEW_WIDTH, VIEW_HEIGHT, 1, visibleSet);
+
+                if (profiler != null)
+                    profiler.end(Phase.CULLING);
+            }
+
+            if (profiler != null)
+                profiler.endFrame();
+        }
+    }
+
+    /**
+     * Rewinds the whole buffer and steps the same frames again, they have to end in the state the run ended in. A
+     * replay can not be rewound with the world and a streamed map loads its chunks as the view moves, so both are
+     * only logged.
+     */
+    private void checkRewind() {
+
+        Gdx.app.log(TAG, String.format("%d states of %d bytes kept to rewind", rewindBuffer.getStateCount(),
+            rewindBuffer.getSlotBytes()));
+
+        if (inputReplay != null || mapStreamer != null)
+            return;
+
+        long stateHash = world.getStateHash();
+        int rewoundSteps = rewindBuffer.rewind(world, REWIND_STEPS);
+
+        stepFrames(rewoundSteps);
+
+        if (world.getStateHash() != stateHash) {
+
+            Gdx.app.error(TAG, "Stepping again after rewinding " + rewoundSteps + " steps ended in another state");
+            exitCode = 1;
+        }
+        else
+            Gdx.app.log(TAG, String.format("Rewound %d steps and stepped them again to the same state", rewoundSteps));
+    }
+
+    private float getViewX() {
+
+        var playerBounds = world.getPlayer().bounds;
+
+        return playerBounds.x + playerBounds.width / 2 - VIEW_WIDTH / 2;
+    }
+
+    private long getAllocatedBytes() {
+
+        long allocatedBytes = 0;
+
+        //a thread that ended in the meantime reports -1
+        for (long threadBytes : threadBean.getThreadAllocatedBytes(threadIds))
+            allocatedBytes += Math.max(0, threadBytes);
+
+        return allocatedBytes;
+    }
+
+    @Override
+    public void dispose() {
+
+        unloadWorld();
+        sprites.dispose();
+        updateExecutor.dispose();
+
+        if (profileExporter != null)
+            profileExporter.dispose();
+
+        if (exitCode != 0)
+            System.exit(exitCode);
+    }
+}
@@ -2,7 +2,18 @@ package knight.nameless.lwjgl3;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import knight.nameless.ForkJoinUpdateExecutor;
 import knight.nameless.Platform;
+import knight.nameless.UpdateExecutor;
+import knight.nameless.input.InputRecorder;
+import knight.nameless.input.InputReplay;
+import knight.nameless.input.InputSource;
+import knight.nameless.input.KeyboardInput;
+import knight.nameless.profiling.BackgroundProfileExporter;
+import knight.nameless.profiling.ProfileExporter;
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.MappedLevelReader;
 
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
@@ -12,7 +23,36 @@ public class Lwjgl3Launcher {
     }
 
     private static void createApplication() {
-        new Lwjgl3Application(new Platform(), getDefaultConfiguration());
+        //// The compiled levels are mapped from their files instead of being read into the heap.
+        LevelFiles.setLevelReader(new MappedLevelReader());
+        //// Run with -Dplatform.streamMap=true to load the map by chunks around the camera.
+        boolean isStreamingMap = Boolean.getBoolean("platform.streamMap");
+        new Lwjgl3Application(new Platform(getUpdateExecutor(), isStreamingMap, getProfileExporter(), getInputSource()),
+            getDefaultConfiguration());
+    }
+
+    private static InputSource getInputSource() {
+        //// Run with -Dplatform.recordInput=session.inp to write the input of every step to a file, and with
+        //// -Dplatform.replayInput=session.inp to play it back instead of reading the keyboard.
+        String replayFile = System.getProperty("platform.replayInput");
+        if (replayFile != null) return InputReplay.read(new FileHandle(replayFile));
+        String recordFile = System.getProperty("platform.recordInput");
+        if (recordFile != null) return new InputRecorder(new KeyboardInput(), new FileHandle(recordFile));
+        return new KeyboardInput();
+    }
+
+    private static ProfileExporter getProfileExporter() {
+        //// Run with -Dplatform.profileFile=profile.csv to write the frame phase timings every few seconds,
+        //// as CSV, or as JSON lines with any other extension. F5 shows them on screen either way.
+        String profileFile = System.getProperty("platform.profileFile");
+        return profileFile != null ? new BackgroundProfileExporter(new FileHandle(profileFile)) : null;
+    }
+
+    private static UpdateExecutor getUpdateExecutor() {
+        //// Run with -Dplatform.updateThreads=4 to update the objects on several threads.
+        //// With the default of 1 the world is updated on the render thread only.
+        int updateThreads = Integer.getInteger("platform.updateThreads", 1);
+        return updateThreads > 1 ? new ForkJoinUpdateExecutor(updateThreads) : UpdateExecutor.SERIAL;
     }
 
     private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {
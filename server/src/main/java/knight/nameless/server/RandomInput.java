@@ -0,0 +1,53 @@
+package knight.nameless.server;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+import knight.nameless.input.InputSnapshot;
+import knight.nameless.input.InputSource;
+
+/**
+ * Holds random buttons for a random number of steps, like a player running and jumping around, for when the server
+ * has no recorded runs to check. The same seed always presses the same buttons.
+ */
+public class RandomInput implements InputSource {
+
+    private static final int MAX_HOLD_STEPS = 90;
+    private final RandomXS128 random;
+    private int buttons;
+    private int holdStepsLeft;
+
+    public RandomInput(long seed) {
+
+        random = new RandomXS128(seed);
+    }
+
+    @Override
+    public int poll() {
+
+        if (holdStepsLeft == 0) {
+
+            buttons = 0;
+
+            //mostly running to the right, the way the levels go
+            int direction = random.nextInt(4);
+
+            if (direction < 2)
+                buttons |= InputSnapshot.RIGHT;
+            else if (direction == 2)
+                buttons |= InputSnapshot.LEFT;
+
+            if (random.nextInt(3) == 0)
+                buttons |= InputSnapshot.JUMP;
+
+            holdStepsLeft = 1 + random.nextInt(MAX_HOLD_STEPS);
+        }
+
+        holdStepsLeft--;
+
+        return buttons;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
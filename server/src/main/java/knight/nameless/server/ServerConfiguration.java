@@ -0,0 +1,13 @@
+package knight.nameless.server;
+
+/** What the {@link SimulationServer} runs and measures, filled from the command line by {@link ServerLauncher}. */
+public class ServerConfiguration {
+
+    public int worlds = 1000;
+    public int threads = Runtime.getRuntime().availableProcessors();
+    /** How many steps every world runs without a replay, one minute of play by default. */
+    public int steps = 3600;
+    public String mapPath = "maps/playground/test3.tmx";
+    /** Feeds every world the input recorded in this file, they then have to end in the same state. */
+    public String replayFile = null;
+}
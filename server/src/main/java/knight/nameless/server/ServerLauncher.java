@@ -0,0 +1,53 @@
+package knight.nameless.server;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import knight.nameless.streaming.LevelFiles;
+import knight.nameless.streaming.MappedLevelReader;
+
+/** Runs many game worlds side by side on the headless backend and reports the throughput of the server. */
+public class ServerLauncher {
+    public static void main(String[] args) {
+
+        var server = new ServerConfiguration();
+
+        for (int i = 0; i < args.length; i++) {
+
+            switch (args[i]) {
+
+                case "--worlds":
+                    server.worlds = Integer.parseInt(args[++i]);
+                    break;
+
+                case "--threads":
+                    server.threads = Integer.parseInt(args[++i]);
+                    break;
+
+                case "--steps":
+                    server.steps = Integer.parseInt(args[++i]);
+                    break;
+
+                case "--map":
+                    server.mapPath = args[++i];
+                    break;
+
+                case "--replay":
+                    server.replayFile = args[++i];
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        //the compiled levels are mapped from their files, like the desktop game does
+        LevelFiles.setLevelReader(new MappedLevelReader());
+
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        //the server runs every world in a single render call, using the fixed time step instead of the clock
+        configuration.updatesPerSecond = 0;
+
+        new HeadlessApplication(new SimulationServer(server), configuration);
+    }
+}
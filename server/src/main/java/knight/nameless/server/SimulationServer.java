@@ -0,0 +1,148 @@
+package knight.nameless.server;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.assets.SpriteRegistry;
+import knight.nameless.headless.HeadlessGL;
+import knight.nameless.input.InputReplay;
+import knight.nameless.input.InputSource;
+import knight.nameless.profiling.LatencyHistogram;
+import knight.nameless.streaming.LevelFiles;
+
+/**
+ * Runs many independent worlds of the same level in one JVM and reports how many it keeps up with. Every world
+ * has its own state and its own input, only the sprites and the structures of the map are shared, read only.
+ */
+public class SimulationServer extends ApplicationAdapter {
+
+    private static final String TAG = "Server";
+    //enough worlds and steps for the JIT to compile the update path before anything is measured
+    private static final int WARMUP_WORLDS = 64;
+    private static final int WARMUP_STEPS = 3600;
+    private final ServerConfiguration configuration;
+    private SpriteRegistry sprites;
+    private TiledMap tiledMap;
+    private WorldScheduler scheduler;
+    //the recorded run every world replays, null to give each one random input
+    private InputReplay inputReplay;
+    private boolean isFinished;
+    private int exitCode;
+
+    public SimulationServer(ServerConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void create() {
+
+        HeadlessGL.install();
+
+        sprites = new SpriteRegistry(new TextureAtlas("images/sprites.atlas"));
+        tiledMap = LevelFiles.loadMap(configuration.mapPath);
+        scheduler = new WorldScheduler(configuration.threads);
+
+        if (configuration.replayFile != null)
+            inputReplay = InputReplay.read(new FileHandle(configuration.replayFile));
+    }
+
+    private void addWorlds(int count, int steps) {
+
+        for (int i = 0; i < count; i++) {
+
+            var world = new GameWorld(sprites);
+            world.loadMap(tiledMap);
+
+            InputSource inputSource = inputReplay != null ? inputReplay.copy() : new RandomInput(i);
+
+            scheduler.add(new WorldSession(i, world, inputSource, steps));
+        }
+    }
+
+    @Override
+    public void render() {
+
+        if (isFinished)
+            return;
+
+        int steps = inputReplay != null ? inputReplay.getFrameCount() : configuration.steps;
+
+        addWorlds(Math.min(WARMUP_WORLDS, configuration.worlds), WARMUP_STEPS);
+        scheduler.runToEnd();
+        scheduler.clear();
+
+        long loadStartTime = TimeUtils.nanoTime();
+
+        addWorlds(configuration.worlds, steps);
+
+        Gdx.app.log(TAG, String.format("%d worlds of %s loaded in %.1f ms", configuration.worlds,
+            configuration.mapPath, (TimeUtils.nanoTime() - loadStartTime) / 1_000_000.0));
+
+        long startTime = TimeUtils.nanoTime();
+
+        scheduler.runToEnd();
+
+        double seconds = (TimeUtils.nanoTime() - startTime) / 1_000_000_000.0;
+        double stepsPerSecond = scheduler.getStepCount() / seconds;
+
+        Gdx.app.log(TAG, String.format("%d worlds of %d steps in %.3f s on %d thread(s)", configuration.worlds,
+            steps, seconds, configuration.threads));
+        Gdx.app.log(TAG, String.format("%.0f world steps per second, %.1f whole runs per second, %.0f worlds kept in realtime",
+            stepsPerSecond, configuration.worlds / seconds, stepsPerSecond * Platform.TIME_STEP));
+
+        logLatencies("World step", scheduler.getStepLatencies());
+        logLatencies("Tick of all the worlds", scheduler.getTickLatencies());
+
+        if (inputReplay != null)
+            checkStates();
+
+        isFinished = true;
+        Gdx.app.exit();
+    }
+
+    private void logLatencies(String label, LatencyHistogram histogram) {
+
+        Gdx.app.log(TAG, String.format("%s: p50 %.1f us, p99 %.1f us, max %.1f us", label,
+            histogram.getPercentile(50) / 1000.0, histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+    }
+
+    //every world replayed the same run on the same level, a world that ended elsewhere was not deterministic
+    private void checkStates() {
+
+        var stateCounts = new LongMap<Integer>();
+
+        for (var session : scheduler.getSessions()) {
+
+            long stateHash = session.getWorld().getStateHash();
+            stateCounts.put(stateHash, stateCounts.get(stateHash, 0) + 1);
+        }
+
+        if (stateCounts.size == 1) {
+
+            Gdx.app.log(TAG, String.format("All the worlds ended in the same state: %016x", stateCounts.keys().next()));
+            return;
+        }
+
+        Gdx.app.error(TAG, String.format("The worlds replaying the same run ended in %d different states",
+            stateCounts.size));
+        exitCode = 1;
+    }
+
+    @Override
+    public void dispose() {
+
+        scheduler.dispose();
+        tiledMap.dispose();
+        sprites.dispose();
+
+        if (exitCode != 0)
+            System.exit(exitCode);
+    }
+}
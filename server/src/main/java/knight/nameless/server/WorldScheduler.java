@@ -0,0 +1,122 @@
+package knight.nameless.server;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import knight.nameless.ForkJoinUpdateExecutor;
+import knight.nameless.profiling.LatencyHistogram;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Steps many worlds in lock-step ticks, every unfinished world once per tick, spread over a fork-join pool. The
+ * worlds are split in more chunks than there are threads, so a thread that got cheap worlds steals chunks from
+ * the others instead of waiting. Every world is stepped serially by whichever thread runs its chunk.
+ */
+public class WorldScheduler implements Disposable {
+
+    //like the objects of a world, enough chunks for the pool to balance worlds that cost more than others
+    private static final int CHUNKS_PER_THREAD = 8;
+    private final ForkJoinUpdateExecutor executor;
+    private final Array<WorldSession> sessions = new Array<>();
+    private final IntConsumer chunkTask = this::stepChunk;
+    private int chunkCount;
+    //how long every tick took, from the first world stepped to the last one
+    private final LatencyHistogram tickLatencies = new LatencyHistogram();
+    private long stepCount;
+
+    public WorldScheduler(int threads) {
+
+        executor = new ForkJoinUpdateExecutor(threads);
+    }
+
+    public void add(WorldSession session) {
+
+        sessions.add(session);
+        chunkCount = Math.min(sessions.size, executor.getParallelism() * CHUNKS_PER_THREAD);
+    }
+
+    public Array<WorldSession> getSessions() {
+        return sessions;
+    }
+
+    /** Steps every unfinished world once, returns false without stepping anything once all of them are finished. */
+    public boolean tick() {
+
+        int runningCount = 0;
+
+        for (var session : sessions) {
+
+            if (!session.isFinished())
+                runningCount++;
+        }
+
+        if (runningCount == 0)
+            return false;
+
+        long startTime = System.nanoTime();
+
+        executor.execute(chunkCount, chunkTask);
+
+        tickLatencies.record(System.nanoTime() - startTime);
+        stepCount += runningCount;
+
+        return true;
+    }
+
+    /** Ticks until every world finished its run. */
+    public void runToEnd() {
+
+        boolean isRunning = true;
+
+        while (isRunning)
+            isRunning = tick();
+    }
+
+    private void stepChunk(int chunk) {
+
+        int start = (int) ((long) sessions.size * chunk / chunkCount);
+        int end = (int) ((long) sessions.size * (chunk + 1) / chunkCount);
+
+        for (int i = start; i < end; i++)
+            sessions.get(i).step();
+    }
+
+    /** How many times a world was stepped since the scheduler was cleared. */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public LatencyHistogram getTickLatencies() {
+        return tickLatencies;
+    }
+
+    /** The step latencies of all the worlds together. */
+    public LatencyHistogram getStepLatencies() {
+
+        var latencies = new LatencyHistogram();
+
+        for (var session : sessions)
+            latencies.add(session.getStepLatencies());
+
+        return latencies;
+    }
+
+    /** Disposes the worlds, the pool stays for the next ones. */
+    public void clear() {
+
+        for (var session : sessions)
+            session.dispose();
+
+        sessions.clear();
+        tickLatencies.reset();
+        stepCount = 0;
+    }
+
+    @Override
+    public void dispose() {
+
+        clear();
+        executor.dispose();
+    }
+}
@@ -0,0 +1,62 @@
+package knight.nameless.server;
+
+import knight.nameless.GameWorld;
+import knight.nameless.Platform;
+import knight.nameless.input.InputSource;
+import knight.nameless.profiling.LatencyHistogram;
+
+/**
+ * One player run simulated on the server: a world of its own, fed by its own input, stepped a fixed number of
+ * times. It is only ever stepped by one thread at a time, the {@link WorldScheduler} hands it between threads.
+ */
+public class WorldSession {
+
+    public final int id;
+    private final GameWorld world;
+    private final InputSource inputSource;
+    private int stepsLeft;
+    //how long every step of this world took
+    private final LatencyHistogram stepLatencies = new LatencyHistogram();
+
+    public WorldSession(int id, GameWorld world, InputSource inputSource, int steps) {
+
+        this.id = id;
+        this.world = world;
+        this.inputSource = inputSource;
+        stepsLeft = steps;
+
+        world.setInputSource(inputSource);
+    }
+
+    /** Steps the world once, unless its run is over. */
+    public void step() {
+
+        if (stepsLeft == 0)
+            return;
+
+        long startTime = System.nanoTime();
+
+        world.update(Platform.TIME_STEP);
+
+        stepLatencies.record(System.nanoTime() - startTime);
+        stepsLeft--;
+    }
+
+    public boolean isFinished() {
+        return stepsLeft == 0;
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    public LatencyHistogram getStepLatencies() {
+        return stepLatencies;
+    }
+
+    public void dispose() {
+
+        world.dispose();
+        inputSource.dispose();
+    }
+}
@@ -0,0 +1,27 @@
+package knight.nameless.simd;
+
+import knight.nameless.physics.OverlapKernel;
+import knight.nameless.physics.ScalarOverlapKernel;
+
+/** Picks the overlap kernel the runtime can run, for the benchmarks, the game itself runs on Java 11. */
+public final class OverlapKernels {
+
+    private OverlapKernels() {
+    }
+
+    /**
+     * The vector kernel when the JVM was started with {@code --add-modules jdk.incubator.vector}, otherwise the
+     * scalar one, which finds the same overlaps.
+     */
+    public static OverlapKernel create() {
+
+        if (isVectorApiAvailable())
+            return new VectorOverlapKernel();
+
+        return new ScalarOverlapKernel();
+    }
+
+    public static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}